@@ -0,0 +1,328 @@
+package com.zjun.view.drag_list_view;
+
+import android.content.Context;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.test.AndroidTestCase;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拖拽和删除手势在预热后不应再分配对象。
+ * 偏移动画和删除动画需要Looper，这两类手势在主线程上逐个事件分发，事件之间让动画运行
+ */
+public class DragListViewAllocationTest extends AndroidTestCase {
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final int ROW_HEIGHT = 80;
+    private static final int WARM_UP_GESTURES = 3;
+    private static final int MEASURED_GESTURES = 20;
+
+    /**
+     * 等待动画结束的最长时间(ms)
+     */
+    private static final long TIMEOUT = 3000;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private DragListView mListView;
+
+    /**
+     * 拖拽手势：在条目右侧按下，拖到下一个条目再拖回
+     */
+    private MotionEvent[] mDragEvents;
+
+    /**
+     * 删除手势：在条目左侧按下，向左滑动一小段后松开（不会删除）。按下事件交给ListView处理，不计入统计
+     */
+    private MotionEvent mSwipeDownEvent;
+    private MotionEvent[] mSwipeEvents;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        List<Integer> datas = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            datas.add(i);
+        }
+        mListView = new DragListView(getContext());
+        mListView.setAdapter(new RowAdapter(getContext(), datas));
+        layout();
+
+        // 事件间隔足够长，松开时的速度不会触发删除
+        int x = WIDTH - 20;
+        int y = ROW_HEIGHT + ROW_HEIGHT / 2;
+        mDragEvents = new MotionEvent[] {
+                MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, x, y, 0),
+                MotionEvent.obtain(0, 1000, MotionEvent.ACTION_MOVE, x, y + ROW_HEIGHT / 2, 0),
+                MotionEvent.obtain(0, 2000, MotionEvent.ACTION_MOVE, x, y + ROW_HEIGHT, 0),
+                MotionEvent.obtain(0, 3000, MotionEvent.ACTION_MOVE, x, y, 0),
+                MotionEvent.obtain(0, 4000, MotionEvent.ACTION_UP, x, y, 0),
+        };
+        x = WIDTH / 4;
+        mSwipeDownEvent = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, x, y, 0);
+        mSwipeEvents = new MotionEvent[] {
+                MotionEvent.obtain(0, 1000, MotionEvent.ACTION_MOVE, x - 20, y, 0),
+                MotionEvent.obtain(0, 2000, MotionEvent.ACTION_MOVE, x - 40, y, 0),
+                MotionEvent.obtain(0, 3000, MotionEvent.ACTION_UP, x - 40, y, 0),
+        };
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (MotionEvent event : mDragEvents) {
+            event.recycle();
+        }
+        for (MotionEvent event : mSwipeEvents) {
+            event.recycle();
+        }
+        mSwipeDownEvent.recycle();
+        super.tearDown();
+    }
+
+    public void testDragDoesNotAllocate() {
+        for (int i = 0; i < WARM_UP_GESTURES; i++) {
+            dispatch(mDragEvents);
+        }
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < MEASURED_GESTURES; i++) {
+            dispatch(mDragEvents);
+        }
+        Debug.stopAllocCounting();
+        assertEquals(0, Debug.getThreadAllocCount());
+    }
+
+    public void testSwipeDoesNotAllocate() {
+        for (int i = 0; i < WARM_UP_GESTURES; i++) {
+            mListView.onTouchEvent(mSwipeDownEvent);
+            dispatch(mSwipeEvents);
+        }
+        int count = 0;
+        for (int i = 0; i < MEASURED_GESTURES; i++) {
+            mListView.onTouchEvent(mSwipeDownEvent);
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            dispatch(mSwipeEvents);
+            Debug.stopAllocCounting();
+            count += Debug.getThreadAllocCount();
+        }
+        assertEquals(0, count);
+        assertEquals(5, mListView.getAdapter().getCount());
+    }
+
+    public void testDeferredDragWithOffsetsDoesNotAllocate() throws Exception {
+        createListViewOnMain(10);
+        // 从第1条拖过3条再退回一条，松手后移到第3条：下方条目先偏移，退回时偏移以动画还原
+        int x = WIDTH - 20;
+        int y = ROW_HEIGHT / 2;
+        MotionEvent[] events = new MotionEvent[] {
+                MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, x, y, 0),
+                MotionEvent.obtain(0, 100, MotionEvent.ACTION_MOVE, x, y + ROW_HEIGHT, 0),
+                MotionEvent.obtain(0, 200, MotionEvent.ACTION_MOVE, x, y + 2 * ROW_HEIGHT, 0),
+                MotionEvent.obtain(0, 300, MotionEvent.ACTION_MOVE, x, y + 3 * ROW_HEIGHT, 0),
+                MotionEvent.obtain(0, 400, MotionEvent.ACTION_MOVE, x, y + 2 * ROW_HEIGHT, 0),
+                MotionEvent.obtain(0, 500, MotionEvent.ACTION_UP, x, y + 2 * ROW_HEIGHT, 0),
+        };
+        try {
+            for (int i = 0; i < WARM_UP_GESTURES; i++) {
+                dispatchOnMain(events);
+            }
+            int count = 0;
+            for (int i = 0; i < MEASURED_GESTURES; i++) {
+                count += dispatchOnMain(events);
+            }
+            assertEquals(0, count);
+        } finally {
+            for (MotionEvent event : events) {
+                event.recycle();
+            }
+        }
+        // 每次都把第1条移到第3条，前3条轮换
+        int gestures = WARM_UP_GESTURES + MEASURED_GESTURES;
+        assertEquals(gestures % 3, (int) ((DragListViewAdapter) mListView.getAdapter()).getItem(0));
+    }
+
+    public void testSwipeDeleteDoesNotAllocate() throws Exception {
+        int rowCount = WARM_UP_GESTURES + MEASURED_GESTURES + 5;
+        createListViewOnMain(rowCount);
+        // 每次滑动超过1/3宽度后松开，删除第2条。按下事件交给ListView处理，不计入统计
+        int x = WIDTH / 2;
+        int y = ROW_HEIGHT + ROW_HEIGHT / 2;
+        MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, x, y, 0);
+        MotionEvent[] events = new MotionEvent[] {
+                MotionEvent.obtain(0, 1000, MotionEvent.ACTION_MOVE, x - 20, y, 0),
+                MotionEvent.obtain(0, 2000, MotionEvent.ACTION_MOVE, x - 200, y, 0),
+                MotionEvent.obtain(0, 3000, MotionEvent.ACTION_UP, x - 200, y, 0),
+        };
+        try {
+            for (int i = 0; i < WARM_UP_GESTURES; i++) {
+                dispatchOnMain(down);
+                dispatchOnMain(events);
+                waitForCount(rowCount - i - 1);
+            }
+            int count = 0;
+            for (int i = 0; i < MEASURED_GESTURES; i++) {
+                dispatchOnMain(down);
+                // 复用预热时回收的删除动画
+                count += dispatchOnMain(events);
+                waitForCount(rowCount - WARM_UP_GESTURES - i - 1);
+            }
+            assertEquals(0, count);
+            assertEquals(5, getCount());
+        } finally {
+            down.recycle();
+            for (MotionEvent event : events) {
+                event.recycle();
+            }
+        }
+    }
+
+    private void dispatch(MotionEvent[] events) {
+        for (MotionEvent event : events) {
+            mListView.onTouchEvent(event);
+        }
+    }
+
+    /**
+     * 在主线程上逐个分发事件，每个事件后等待一帧，让偏移和删除动画运行
+     *
+     * @return 分发这些事件时主线程分配的对象数
+     */
+    private int dispatchOnMain(MotionEvent... events) throws InterruptedException {
+        final int[] count = new int[1];
+        for (final MotionEvent event : events) {
+            runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    Debug.resetThreadAllocCount();
+                    Debug.startAllocCounting();
+                    mListView.onTouchEvent(event);
+                    Debug.stopAllocCounting();
+                    count[0] += Debug.getThreadAllocCount();
+                }
+            });
+            SystemClock.sleep(16);
+            runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    // 没有窗口，手动布局
+                    if (mListView.isLayoutRequested()) {
+                        layout();
+                    }
+                }
+            });
+        }
+        return count[0];
+    }
+
+    /**
+     * 等待删除动画结束，数据减少到count条
+     */
+    private void waitForCount(int count) throws InterruptedException {
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT;
+        while (getCount() > count && SystemClock.uptimeMillis() < deadline) {
+            runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    if (mListView.isLayoutRequested()) {
+                        layout();
+                    }
+                }
+            });
+            SystemClock.sleep(16);
+        }
+        assertEquals(count, getCount());
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                layout();
+            }
+        });
+    }
+
+    private int getCount() throws InterruptedException {
+        final int[] count = new int[1];
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                count[0] = mListView.getAdapter().getCount();
+            }
+        });
+        return count[0];
+    }
+
+    private void createListViewOnMain(final int rowCount) throws InterruptedException {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                List<Integer> datas = new ArrayList<>();
+                for (int i = 0; i < rowCount; i++) {
+                    datas.add(i);
+                }
+                mListView = new DragListView(getContext());
+                mListView.setAdapter(new RowAdapter(getContext(), datas));
+                layout();
+            }
+        });
+    }
+
+    private void layout() {
+        mListView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mListView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * 在主线程中执行并等待完成，断言失败时在测试线程中抛出
+     */
+    private void runOnMainSync(final Runnable runnable) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Throwable[] error = new Throwable[1];
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runnable.run();
+                } catch (Throwable t) {
+                    error[0] = t;
+                }
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        if (error[0] instanceof Error) {
+            throw (Error) error[0];
+        } else if (error[0] != null) {
+            throw new RuntimeException(error[0]);
+        }
+    }
+
+    /**
+     * 固定高度的空白条目，绑定时不分配对象
+     */
+    private static class RowAdapter extends DragListViewAdapter<Integer> {
+
+        RowAdapter(Context context, List<Integer> datas) {
+            super(context, datas);
+        }
+
+        @Override
+        public View getItemView(int position, View convertView, ViewGroup parent) {
+            if (convertView == null) {
+                convertView = new View(mContext);
+                convertView.setLayoutParams(new AbsListView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ROW_HEIGHT));
+            }
+            return convertView;
+        }
+    }
+}
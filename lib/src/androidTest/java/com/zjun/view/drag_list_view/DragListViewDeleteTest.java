@@ -0,0 +1,202 @@
+package com.zjun.view.drag_list_view;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.test.AndroidTestCase;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在主线程上用真实的ValueAnimator执行左滑删除，滑出和收起两段动画结束后数据应被删除；
+ * 连续快速删除时每条都应删除
+ */
+public class DragListViewDeleteTest extends AndroidTestCase {
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final int ROW_HEIGHT = 80;
+    private static final int ROW_COUNT = 5;
+
+    /**
+     * 等待动画结束的最长时间(ms)
+     */
+    private static final long TIMEOUT = 3000;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private DragListView mListView;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                List<Integer> datas = new ArrayList<>();
+                for (int i = 0; i < ROW_COUNT; i++) {
+                    datas.add(i);
+                }
+                mListView = new DragListView(getContext());
+                mListView.setAdapter(new RowAdapter(getContext(), datas));
+                layout();
+            }
+        });
+    }
+
+    public void testSwipeDeleteCommitsAfterCollapse() throws Exception {
+        swipe(1);
+        waitForCount(ROW_COUNT - 1);
+
+        assertEquals(ROW_COUNT - 1, getCount());
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                layout();
+                assertEquals(2, (int) ((DragListViewAdapter) mListView.getAdapter()).getItem(1));
+                for (int i = 0; i < mListView.getChildCount(); i++) {
+                    View child = mListView.getChildAt(i);
+                    assertEquals(ROW_HEIGHT, child.getHeight());
+                    assertFalse(child.hasTransientState());
+                }
+            }
+        });
+    }
+
+    public void testRapidSwipeDeletes() throws Exception {
+        // 从下往上连续删除，前一条的动画还没结束就开始下一条
+        for (int row = 3; row >= 1; row--) {
+            swipe(row);
+        }
+        assertTrue(getCount() > ROW_COUNT - 3);
+        waitForCount(ROW_COUNT - 3);
+
+        assertEquals(ROW_COUNT - 3, getCount());
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                layout();
+                DragListViewAdapter adapter = (DragListViewAdapter) mListView.getAdapter();
+                assertEquals(0, (int) adapter.getItem(0));
+                assertEquals(4, (int) adapter.getItem(1));
+                for (int i = 0; i < mListView.getChildCount(); i++) {
+                    View child = mListView.getChildAt(i);
+                    assertEquals(ROW_HEIGHT, child.getHeight());
+                    assertEquals(0f, child.getTranslationX(), 0f);
+                    assertFalse(child.hasTransientState());
+                }
+            }
+        });
+    }
+
+    /**
+     * 快速左滑超过1/3宽度后松手，删除第row条
+     */
+    private void swipe(final int row) throws InterruptedException {
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                long downTime = SystemClock.uptimeMillis();
+                int x = WIDTH / 2;
+                int y = row * ROW_HEIGHT + ROW_HEIGHT / 2;
+                dispatch(downTime, MotionEvent.ACTION_DOWN, x, y);
+                dispatch(downTime, MotionEvent.ACTION_MOVE, x - 20, y);
+                dispatch(downTime, MotionEvent.ACTION_MOVE, x - 200, y);
+                dispatch(downTime, MotionEvent.ACTION_UP, x - 200, y);
+            }
+        });
+    }
+
+    /**
+     * 等待动画结束，数据减少到count条
+     */
+    private void waitForCount(int count) throws InterruptedException {
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT;
+        while (getCount() > count && SystemClock.uptimeMillis() < deadline) {
+            runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    // 收起高度时条目会请求布局，这里没有窗口，手动布局
+                    if (mListView.isLayoutRequested()) {
+                        layout();
+                    }
+                }
+            });
+            SystemClock.sleep(16);
+        }
+    }
+
+    private int getCount() throws InterruptedException {
+        final int[] count = new int[1];
+        runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                count[0] = mListView.getAdapter().getCount();
+            }
+        });
+        return count[0];
+    }
+
+    private void layout() {
+        mListView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mListView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private void dispatch(long downTime, int action, int x, int y) {
+        MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, y, 0);
+        mListView.onTouchEvent(event);
+        event.recycle();
+    }
+
+    /**
+     * 在主线程中执行并等待完成，断言失败时在测试线程中抛出
+     */
+    private void runOnMainSync(final Runnable runnable) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Throwable[] error = new Throwable[1];
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runnable.run();
+                } catch (Throwable t) {
+                    error[0] = t;
+                }
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        if (error[0] instanceof Error) {
+            throw (Error) error[0];
+        } else if (error[0] != null) {
+            throw new RuntimeException(error[0]);
+        }
+    }
+
+    /**
+     * 固定高度的空白条目
+     */
+    private static class RowAdapter extends DragListViewAdapter<Integer> {
+
+        RowAdapter(Context context, List<Integer> datas) {
+            super(context, datas);
+        }
+
+        @Override
+        public View getItemView(int position, View convertView, ViewGroup parent) {
+            if (convertView == null) {
+                convertView = new View(mContext);
+                convertView.setLayoutParams(new AbsListView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ROW_HEIGHT));
+            }
+            return convertView;
+        }
+    }
+}
@@ -1,24 +1,34 @@
 package com.zjun.view.drag_list_view;
 
+import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.PixelFormat;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.SystemClock;
 import android.util.AttributeSet;
-import android.view.Gravity;
+import android.util.SparseBooleanArray;
 import android.view.MotionEvent;
+import android.view.Display;
 import android.view.VelocityTracker;
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.WindowManager;
 import android.view.animation.AlphaAnimation;
 import android.view.animation.Animation;
 import android.widget.AdapterView;
-import android.widget.ImageView;
 import android.widget.ListAdapter;
 import android.widget.ListView;
-import android.widget.Scroller;
 
+import com.zjun.draglistview_lib.R;
 import com.zjun.view.CommonTool;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 
 /**
  * 可拖拽排序的ListView
@@ -27,6 +37,7 @@ import com.zjun.view.CommonTool;
  * 2、可添加头部控件headerView
  * 3、左滑可删除
  * 4、可设置点击和长按事件
+ * 5、多选后可一次拖拽多条
  *
  * Created by Ralap on 2016/5/8.
  */
@@ -36,15 +47,29 @@ public class DragListView extends ListView {
     private static final String LOG_TAG = DragListView.class.getSimpleName();
 
     /**
-     * 拖拽快照的透明度(0.0f ~ 1.0f)。进入删除时的状态也取此值
+     * 拖拽快照的透明度(0.0f ~ 1.0f)。进入删除时的状态也取此值。DragRecyclerView共用
      */
-    private static final float DRAG_PHOTO_VIEW_ALPHA = .8f;
+    static final float DRAG_PHOTO_VIEW_ALPHA = .8f;
 
     /**
-     * 上下滚动时的时间
+     * 一帧的标准时长(ms)
      */
-    @SuppressWarnings("unused")
-    private static final int SMOOTH_SCROLL_DURATION = 100;
+    private static final int FRAME_TIME = 16;
+
+    /**
+     * 自动滚动的加速时间(ms)：在边缘停留这么久后达到最大速度
+     */
+    private static final int AUTO_SCROLL_RAMP_TIME = 1000;
+
+    /**
+     * 刚进入边缘时，自动滚动速度占最大速度的比例
+     */
+    private static final float AUTO_SCROLL_MIN_RAMP = .2f;
+
+    /**
+     * 掉帧时，一帧最多按几帧的距离滚动
+     */
+    private static final float AUTO_SCROLL_MAX_FRAMES = 3f;
 
     /**
      * 进入删除状态的X轴方向最小值
@@ -56,18 +81,84 @@ public class DragListView extends ListView {
      */
     private static final int DELETE_Y_SLOP = 10;
 
+    /**
+     * 删除的门槛速度(dp/100ms)，向左为负。DragRecyclerView共用
+     */
+    static final int DELETE_X_THRESHOLD_DP = -60;
+
     /**
      * 在删除状态时，向左滑，X轴方向的达到删除要求的门槛速度(px/100ms)。根据屏幕密度值来确定
      */
     private float DELETE_X_THRESHOLD;
 
     /**
-     * 上下滚动时的最大距离，可进行设置
+     * 拖拽到边缘自动滚动时，每帧的最大距离(px)，可进行设置
      * @see #setMaxDistance(int)
      * @see #getMaxDistance()
      */
     private int mMaxDistance = 30;
 
+    /**
+     * 删除条目滑出后，收起其高度的时长(ms)
+     */
+    private static final int DELETE_COLLAPSE_DURATION = 150;
+
+    /**
+     * 快照图片池的默认内存预算(字节)
+     */
+    private static final int DEFAULT_PHOTO_POOL_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * 快照图片的默认缩放比例。绘制时再放大到条目大小
+     */
+    private static final float DEFAULT_PHOTO_SCALE = .5f;
+
+    /**
+     * 拖拽时，中间条目让出位置的动画时长(ms)
+     */
+    private static final int ITEM_SHIFT_DURATION = 150;
+
+    /**
+     * 多选拖拽的叠放快照：最上层之下最多再画几层，及每层错开的距离(dp)
+     */
+    private static final int STACK_MAX_LAYERS = 2;
+    private static final int STACK_LAYER_OFFSET = 4;
+
+    /**
+     * 多选拖拽时叠放快照每层错开的距离(px)
+     */
+    private int mStackLayerOffset;
+
+    /**
+     * 是否正在拖拽多条选中的数据，及这些数据的位置（不含Header，升序）
+     * @see #setMultiSelectEnabled(boolean)
+     */
+    private boolean mIsMultiDragging;
+    private int[] mMultiDragPositions;
+
+    /**
+     * 是否延迟排序：拖拽过程中只记录待移动的位置，并用偏移动画显示中间条目，松手时才提交一次移动
+     * @see #setDeferReorderEnabled(boolean)
+     */
+    private boolean mDeferReorder = true;
+
+    /**
+     * 是否批量删除：左滑删除的数据先标记删除（隐藏），列表空闲时再一次性移除
+     * @see #setBatchDeleteEnabled(boolean)
+     */
+    private boolean mBatchDelete = false;
+
+    /**
+     * 是否合并触摸事件：拖拽和删除时，一帧内的多个ACTION_MOVE只处理最新的一个
+     * @see #setCoalesceTouchEventsEnabled(boolean)
+     */
+    private boolean mCoalesceTouch = false;
+
+    /**
+     * 批量删除时，最后一次删除后等待多久(ms)再移除被标记的数据
+     */
+    private static final int COMPACT_DELAY = 500;
+
 
     public DragListView(Context context) {
         super(context);
@@ -85,13 +176,14 @@ public class DragListView extends ListView {
     }
 
     private void initialize(){
-        DELETE_X_THRESHOLD = CommonTool.dp2px(getContext(), -60);
+        DELETE_X_THRESHOLD = CommonTool.dp2px(getContext(), DELETE_X_THRESHOLD_DP);
+        mStackLayerOffset = CommonTool.dp2px(getContext(), STACK_LAYER_OFFSET);
 
         // 为了防止滑动时和滑动后背景变灰（系统默认颜色）,且XML中没有设置listSelector和cacheColorHint，这里确保两属性都是透明
         setSelector(android.R.color.transparent); // 或0
         setCacheColorHint(0);
         
-        mScroller = new Scroller(getContext());
+        mDragPhotoPaint.setAlpha((int) (DRAG_PHOTO_VIEW_ALPHA * 255));
     }
 
     /**
@@ -111,12 +203,6 @@ public class DragListView extends ListView {
     private int mMoveX;
     private int mMoveY;
 
-    /**
-     * 原生偏移量。也就是ListView的左上角相对于屏幕的位置
-     */
-    private int mRawOffsetX;
-    private int mRawOffsetY;
-
     /**
      * 在条目中的位置
      */
@@ -124,7 +210,7 @@ public class DragListView extends ListView {
     private int mItemOffsetY;
 
     /**
-     * 拖拽快照的垂直位置范围。根据条目数量和ListView的高度来确定
+     * 拖拽快照的垂直位置范围（ListView内的坐标）。根据条目数量和ListView的高度来确定
      */
     private int mMinDragY;
     private int mMaxDragY;
@@ -150,24 +236,60 @@ public class DragListView extends ListView {
     private int mToPosition;
 
     /**
-     * 窗口管理器，用于显示条目的快照
+     * 是否直接绘制条目作为快照
+     * @see #setLiveDragPhotoEnabled(boolean)
      */
-    private WindowManager mWindowManager;
+    private boolean mLiveDragPhoto = true;
 
     /**
-     * 窗口管理的布局参数
+     * 直接绘制的拖拽条目。拖拽期间保持其暂态，不会被复用到其他位置。不为null时不使用快照图片
      */
-    private WindowManager.LayoutParams mWindowLayoutParams;
+    private View mDragLiveView;
 
     /**
-     * 拖拽条目的快照图片
+     * 拖拽条目的快照图片。直接绘制在ListView中，不再通过WindowManager添加窗口
      */
     private Bitmap mDragPhotoBitmap;
 
     /**
-     * 正在拖拽的条目快照view
+     * 快照图片的缩放比例，及是否使用RGB_565
+     * @see #setDragPhotoScale(float)
+     * @see #setDragPhotoRgb565Enabled(boolean)
+     */
+    private float mDragPhotoScale = DEFAULT_PHOTO_SCALE;
+    private boolean mDragPhotoRgb565;
+
+    /**
+     * 快照下叠放的层数，多选拖拽时大于0
+     */
+    private int mDragPhotoLayers;
+
+    /**
+     * 拖拽快照在ListView中的区域，与条目（含叠放层）等大
+     */
+    private final Rect mDragPhotoRect = new Rect();
+
+    /**
+     * 快照图片截取的部分（相对于条目），条目超出ListView时只截取可见的部分；及其在ListView中的绘制区域
+     */
+    private final Rect mDragPhotoSrc = new Rect();
+    private final Rect mDragPhotoDst = new Rect();
+
+    /**
+     * 绘制拖拽快照的画笔，用于设置透明度
+     */
+    private final Paint mDragPhotoPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    /**
+     * 用于把条目绘制到快照图片上的画布，重复使用
+     */
+    private final Canvas mDragPhotoCanvas = new Canvas();
+
+    /**
+     * 快照图片池，多次拖拽之间复用图片
+     * @see #setDragPhotoPoolBytes(int)
      */
-    private ImageView mDragPhotoView;
+    private final DragPhotoBitmapPool mDragPhotoPool = new DragPhotoBitmapPool(DEFAULT_PHOTO_POOL_BYTES);
 
 
     /**
@@ -191,27 +313,42 @@ public class DragListView extends ListView {
     private OnItemLongClickListener mDeletingItemLongClickListener;
 
     /**
-     * 正在删除的条目位置
+     * 手指正在左滑的条目位置
      */
     private int mDeletingPosition;
     /**
-     * 正在删除的条目
+     * 正在删除条目的透明度
      */
-    private View mDeletingItem;
+    private float mDeletingItemAlpha = 1f;
+
     /**
-     * 正在删除条目的透明度
+     * 松手后正在执行删除动画的条目，可同时有多个
      */
-    private float mDeletingItemAlpha;
+    private final List<PendingDelete> mPendingDeletes = new ArrayList<>();
 
     /**
-     * 速度追踪器
+     * 已结束的删除动画，供复用
      */
-    private VelocityTracker mVelocityTracker;
+    private final List<PendingDelete> mRecycledDeletes = new ArrayList<>();
+
+    /**
+     * 列表空闲时移除被标记删除的数据
+     */
+    private final Runnable mCompactRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mIsDraging || mIsDeleting || !mPendingDeletes.isEmpty()) {
+                postDelayed(this, COMPACT_DELAY);
+                return;
+            }
+            mAdapter.compactDeletedData();
+        }
+    };
 
     /**
-     * 滑动器
+     * 速度追踪器
      */
-    private Scroller mScroller;
+    private VelocityTracker mVelocityTracker;
 
     /**
      * 适配器
@@ -219,71 +356,338 @@ public class DragListView extends ListView {
     private DragListViewAdapter mAdapter;
 
     /**
-     * 头部总高度
+     * 开始拖拽时隐藏条目的动画，及正在执行该动画的条目。只创建一次，每次拖拽复用
      */
-    @SuppressWarnings("unused")
-    private int mHeaderHeightSum = 0;
+    private AlphaAnimation mDragHideAnimation;
+    private View mDragHideView;
+
+    private final Animation.AnimationListener mDragHideListener = new Animation.AnimationListener() {
+        @Override
+        public void onAnimationStart(Animation animation) {
+        }
+
+        @Override
+        public void onAnimationEnd(Animation animation) {
+            if (mDragHideView != null && mIsDraging
+                    && (mDeferReorder || mIsMultiDragging || mToPosition == mDragPosition)) {
+                mDragHideView.setVisibility(View.INVISIBLE);
+            }
+            mDragHideView = null;
+        }
+
+        @Override
+        public void onAnimationRepeat(Animation animation) {
+        }
+    };
+
     /**
-     * 脚部总高度
+     * 是否正在自动滚动，及滚动方向(-1向上，1向下)
      */
-    @SuppressWarnings("unused")
-    private int mFooterHeightSum = 0;
+    private boolean mAutoScrolling;
+    private int mAutoScrollDirection;
+
+    /**
+     * 进入当前边缘的时间，及上一帧的时间
+     */
+    private long mAutoScrollStartTime;
+    private long mAutoScrollFrameTime;
+
+    /**
+     * 是否已请求在下一帧处理触摸移动
+     */
+    private boolean mTouchFramePending;
+
+    /**
+     * 合并触摸事件时，每帧处理一次最新的触摸位置
+     */
+    private final Runnable mTouchFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mTouchFramePending = false;
+            applyTouchMove();
+        }
+    };
+
+    /**
+     * 自动滚动的帧回调
+     */
+    private final Runnable mAutoScrollRunnable = new Runnable() {
+        @Override
+        public void run() {
+            doAutoScrollFrame();
+        }
+    };
+
+    /**
+     * 适配器的数据变化观察者，只刷新受影响的条目
+     */
+    private final DragListViewAdapter.DataChangeObserver mDataChangeObserver = new DragListViewAdapter.DataChangeObserver() {
+        @Override
+        public void onItemMoved(int from, int to) {
+            int headerCount = getHeaderViewsCount();
+            mRowHeights.move(from + headerCount, to + headerCount);
+            for (int i = 0; i < mPendingDeletes.size(); i++) {
+                PendingDelete pendingDelete = mPendingDeletes.get(i);
+                pendingDelete.index = movedIndex(pendingDelete.index, from, to);
+            }
+            int[] checked = takeCheckedDataPositions();
+            if (checked != null) {
+                for (int i = 0; i < checked.length; i++) {
+                    checked[i] = movedIndex(checked[i], from, to);
+                }
+                restoreCheckedDataPositions(checked);
+            }
+            if (mAdapter.hasStableIds()) {
+                // ID稳定时，重新布局即可按ID找回原条目，无需重新绑定
+                mAdapter.notifyStructureChanged();
+            } else {
+                rebindItems(Math.min(from, to), Math.max(from, to));
+            }
+        }
+
+        @Override
+        public void onItemsSwapped(int i, int j) {
+            int headerCount = getHeaderViewsCount();
+            mRowHeights.swap(i + headerCount, j + headerCount);
+            for (int k = 0; k < mPendingDeletes.size(); k++) {
+                PendingDelete pendingDelete = mPendingDeletes.get(k);
+                if (pendingDelete.index == i) {
+                    pendingDelete.index = j;
+                } else if (pendingDelete.index == j) {
+                    pendingDelete.index = i;
+                }
+            }
+            int[] checked = takeCheckedDataPositions();
+            if (checked != null) {
+                for (int k = 0; k < checked.length; k++) {
+                    if (checked[k] == i) {
+                        checked[k] = j;
+                    } else if (checked[k] == j) {
+                        checked[k] = i;
+                    }
+                }
+                restoreCheckedDataPositions(checked);
+            }
+            if (mAdapter.hasStableIds()) {
+                mAdapter.notifyStructureChanged();
+            } else {
+                rebindItems(i, i);
+                rebindItems(j, j);
+            }
+        }
+
+        @Override
+        public void onItemRangeReordered(int positionStart, int[] order) {
+            int headerCount = getHeaderViewsCount();
+            mRowHeights.reorder(positionStart + headerCount, order, headerCount);
+            int end = positionStart + order.length;
+            for (int k = 0; k < mPendingDeletes.size(); k++) {
+                PendingDelete pendingDelete = mPendingDeletes.get(k);
+                pendingDelete.index = reorderedIndex(pendingDelete.index, positionStart, order);
+            }
+            int[] checked = takeCheckedDataPositions();
+            if (checked != null) {
+                for (int k = 0; k < checked.length; k++) {
+                    checked[k] = reorderedIndex(checked[k], positionStart, order);
+                }
+                restoreCheckedDataPositions(checked);
+            }
+            if (mAdapter.hasStableIds()) {
+                mAdapter.notifyStructureChanged();
+            } else {
+                rebindItems(positionStart, end - 1);
+            }
+        }
+
+        @Override
+        public void onItemRemoved(int position) {
+            // 修正正在删除的条目位置
+            int headerCount = getHeaderViewsCount();
+            mRowHeights.remove(position + headerCount);
+            if (mIsDeleting && mDeletingPosition - headerCount > position) {
+                mDeletingPosition--;
+            }
+            for (int i = 0; i < mPendingDeletes.size(); i++) {
+                PendingDelete pendingDelete = mPendingDeletes.get(i);
+                if (pendingDelete.index > position) {
+                    pendingDelete.index--;
+                }
+            }
+            int[] checked = takeCheckedDataPositions();
+            if (checked != null) {
+                for (int i = 0; i < checked.length; i++) {
+                    if (checked[i] == position) {
+                        checked[i] = -1;
+                    } else if (checked[i] > position) {
+                        checked[i]--;
+                    }
+                }
+                restoreCheckedDataPositions(checked);
+            }
+        }
+
+        @Override
+        public void onItemInserted(int position) {
+            int headerCount = getHeaderViewsCount();
+            mRowHeights.insert(position + headerCount);
+            if (mIsDeleting && mDeletingPosition - headerCount >= position) {
+                mDeletingPosition++;
+            }
+            for (int i = 0; i < mPendingDeletes.size(); i++) {
+                PendingDelete pendingDelete = mPendingDeletes.get(i);
+                if (pendingDelete.index >= position) {
+                    pendingDelete.index++;
+                }
+            }
+            int[] checked = takeCheckedDataPositions();
+            if (checked != null) {
+                for (int i = 0; i < checked.length; i++) {
+                    if (checked[i] >= position) {
+                        checked[i]++;
+                    }
+                }
+                restoreCheckedDataPositions(checked);
+            }
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            rebindItems(positionStart, positionStart + itemCount - 1);
+        }
+    };
+
+    /**
+     * 每个位置（含Header和Footer）的行高索引，布局时更新
+     */
+    private final RowHeightIndex mRowHeights = new RowHeightIndex();
+
+    /**
+     * 正在显示的条目的上下边缘，升序。用于快速确定触摸点所在的条目
+     * @see #getLayoutPosition(int)
+     */
+    private int[] mChildEdges = new int[1];
+
+    /**
+     * 记录边缘时第一个条目的位置和条目数，变化时需重新记录
+     */
+    private int mEdgesFirstPosition = AdapterView.INVALID_POSITION;
+    private int mEdgesChildCount;
+
+    /**
+     * 条目等高时的行高（含分割线），不等高时为0
+     */
+    private int mUniformRowHeight;
+
+    /**
+     * 上次命中的条目下标，拖拽时通常不变
+     */
+    private int mLastHitIndex = -1;
+
+    /**
+     * 性能数据的监听器，及复用的数据对象
+     * @see #setOnDragMetricsListener(OnDragMetricsListener)
+     */
+    private OnDragMetricsListener mOnDragMetricsListener;
+    private final DragMetrics mDragMetrics = new DragMetrics();
+
+    /**
+     * 是否正在统计，及手势按下的时间
+     */
+    private boolean mMetricsActive;
+    private long mMetricsDownTime;
+
+    /**
+     * 帧数统计，Android 4.1及以上才创建
+     */
+    private FrameMonitor mFrameMonitor;
+
+    /**
+     * 手势已结束、等待回调的性能数据
+     */
+    private boolean mMetricsPending;
+
+    /**
+     * 等松手后提交数据的布局完成、删除动画结束，再统计重新绑定的条目数并回调
+     */
+    private final Runnable mMetricsRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (isLayoutRequested() || !mPendingDeletes.isEmpty()) {
+                postOnAnimationCompat(this);
+                return;
+            }
+            dispatchMetrics();
+        }
+    };
 
     @Override
     public boolean onTouchEvent(MotionEvent ev) {
+        if (mOnDragMetricsListener == null) {
+            return handleTouchEvent(ev);
+        }
+        long start = System.nanoTime();
+        boolean handled = handleTouchEvent(ev);
+        if (mMetricsActive) {
+            mDragMetrics.touchTimeNanos += System.nanoTime() - start;
+            int action = ev.getAction() & MotionEvent.ACTION_MASK;
+            if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+                finishMetrics(ev);
+            }
+        }
+        return handled;
+    }
+
+    private boolean handleTouchEvent(MotionEvent ev) {
         // 获取第一个手指点的Action
         int action = ev.getAction() & MotionEvent.ACTION_MASK;
         switch (action) {
             case MotionEvent.ACTION_DOWN:
                 // 初始化操作
                 setOnItemLongClickListener(mDeletingItemLongClickListener);
-                if (mVelocityTracker == null) {
-                    mVelocityTracker = VelocityTracker.obtain();
-                } else {
-                    mVelocityTracker.clear();
-                }
-                mVelocityTracker.addMovement(ev);
 
                 mDownX = (int) ev.getX();
                 mDownY = (int) ev.getY();
                 // 获取当前触摸位置对应的条目索引
-                mDragPosition = pointToPosition(mDownX, mDownY);
+                mDragPosition = getLayoutPosition(mDownY);
                 // 如果触摸的坐标不在条目上，在分割线、或外部区域，则为无效值-1; 宽度3/4 以右的区域可拖拽; Header和Footer无效
-                if (!isPositionValid(mDragPosition) || mDownX < getWidth() * 3 / 4) {
+                if (!isPositionValid(mDragPosition) || mDownX < getWidth() * 3 / 4
+                        || !isDragDataLoaded(mDragPosition)) {
                     return super.onTouchEvent(ev);
                 }
                 mIsDraging = true;
                 mToPosition = mFromPosition = mDragPosition;
 
-                mRawOffsetX = (int) (ev.getRawX() - mDownX);
-                mRawOffsetY = (int) (ev.getRawY() - mDownY);
-
                 // 开始拖拽的前期工作：展示item快照
                 startDrag();
+                beginMetrics(DragMetrics.GESTURE_DRAG, ev);
                 break;
             case MotionEvent.ACTION_MOVE:
-                mVelocityTracker.addMovement(ev);
+                // 只有删除时才需要速度
+                if (mIsDeleting) {
+                    mVelocityTracker.addMovement(ev);
+                }
 
                 mMoveX = (int) ev.getX();
                 mMoveY = (int) ev.getY();
-                if (mIsDraging) {
-                    // 更新快照位置
-                    updateDragView();
-                    // 更新当前被替换的位置
-                    updateItemView();
-                } else if (mIsDeleting) {
-                    // 移动将要删除的条目
-                    moveDeleting();
-
+                if (mIsDraging || mIsDeleting) {
+                    if (mCoalesceTouch && getWindowToken() != null) {
+                        // 只记录最新位置，每帧处理一次。自动滚动时由其帧回调处理
+                        if (!mTouchFramePending && !(mIsDraging && mAutoScrolling)) {
+                            mTouchFramePending = true;
+                            postOnAnimationCompat(mTouchFrameRunnable);
+                        }
+                    } else {
+                        applyTouchMove();
+                    }
                 } else {
                     if (!mIsScrolling && !mLongClickFlag && mDownX - mMoveX >= DELETE_X_MIN && Math.abs(mMoveY - mDownY) <= DELETE_Y_SLOP) {
-                        mDeletingPosition = pointToPosition(mDownX, mDownY);
+                        mDeletingPosition = getLayoutPosition(mDownY);
                         super.setOnItemLongClickListener(null);
-                        if (isPositionValid(mDeletingPosition)) {
-                            startDeleting();
-                        } else {
+                        if (!isPositionValid(mDeletingPosition) || !startDeleting()) {
                             return super.onTouchEvent(ev);
                         }
+                        obtainVelocityTracker(ev);
+                        beginMetrics(DragMetrics.GESTURE_SWIPE, ev);
                     } else {
                         if (Math.abs(mMoveY - mDownY) >= DELETE_Y_SLOP) {
                             mIsScrolling = true;
@@ -295,6 +699,12 @@ public class DragListView extends ListView {
                 break;
             case MotionEvent.ACTION_UP:
                 rstLongClickFlag();
+                // 先处理尚未处理的移动
+                if (mTouchFramePending) {
+                    removeCallbacks(mTouchFrameRunnable);
+                    mTouchFramePending = false;
+                    applyTouchMove();
+                }
 
                 if (mIsDraging) {
                     // 停止拖拽
@@ -304,10 +714,26 @@ public class DragListView extends ListView {
                     stopDeleting();
                 } else {
                     mIsScrolling = false;
-                    recycleVelocityTracker();
                     return super.onTouchEvent(ev);
                 }
-                recycleVelocityTracker();
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                // 手势被父View拦截等：与松手相同地结束，但不提交移动和删除
+                rstLongClickFlag();
+                if (mTouchFramePending) {
+                    removeCallbacks(mTouchFrameRunnable);
+                    mTouchFramePending = false;
+                }
+
+                if (mIsDraging) {
+                    cancelDrag();
+                } else if (mIsDeleting) {
+                    resetDeleteItem();
+                    mIsDeleting = false;
+                } else {
+                    mIsScrolling = false;
+                    return super.onTouchEvent(ev);
+                }
                 break;
             default:
                 break;
@@ -315,6 +741,91 @@ public class DragListView extends ListView {
         return true;
     }
 
+    /**
+     * 拖拽或删除开始时，开始统计性能数据
+     */
+    private void beginMetrics(int gesture, MotionEvent ev) {
+        if (mOnDragMetricsListener == null) {
+            return;
+        }
+        // 上一次手势的数据还在等待，先回调，以免被覆盖
+        if (mMetricsPending) {
+            removeCallbacks(mMetricsRunnable);
+            dispatchMetrics();
+        }
+        mMetricsActive = true;
+        // 以按下事件的时间为起点，包含快照出现前的输入延迟
+        mMetricsDownTime = ev.getDownTime();
+        mDragMetrics.reset(gesture, mAdapter.getCount(), mAdapter.getBindCount());
+        if (mDragPhotoBitmap != null) {
+            mDragMetrics.snapshotBytes = mDragPhotoBitmap.getByteCount();
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mFrameMonitor == null) {
+                mFrameMonitor = new FrameMonitor();
+            }
+            mFrameMonitor.start(getRefreshRate());
+        }
+    }
+
+    /**
+     * 当前屏幕的刷新率(Hz)，获取不到时为0
+     */
+    private float getRefreshRate() {
+        Display display = null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            display = getDisplay();
+        }
+        if (display == null) {
+            WindowManager windowManager = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+            display = windowManager == null ? null : windowManager.getDefaultDisplay();
+        }
+        return display == null ? 0 : display.getRefreshRate();
+    }
+
+    /**
+     * 手势结束，停止计时和帧数统计。松手时数据尚未提交，重新绑定的条目数到下一帧之后再统计
+     */
+    private void finishMetrics(MotionEvent ev) {
+        mMetricsActive = false;
+        DragMetrics metrics = mDragMetrics;
+        metrics.durationMillis = ev.getEventTime() - mMetricsDownTime;
+        if (mFrameMonitor != null) {
+            mFrameMonitor.stop();
+            metrics.frameCount = mFrameMonitor.getFrameCount();
+            metrics.framesOverBudget = mFrameMonitor.getFramesOverBudget();
+        }
+        mMetricsPending = true;
+        postOnAnimationCompat(mMetricsRunnable);
+    }
+
+    /**
+     * 统计重新绑定的条目数，回调性能数据
+     */
+    private void dispatchMetrics() {
+        mMetricsPending = false;
+        DragMetrics metrics = mDragMetrics;
+        metrics.reboundRows = mAdapter.getBindCount() - metrics.bindCountStart;
+        if (mOnDragMetricsListener != null) {
+            mOnDragMetricsListener.onDragMetrics(metrics);
+        }
+    }
+
+    /**
+     * 按最新的触摸位置，更新拖拽或删除中的条目
+     */
+    private void applyTouchMove() {
+        if (mIsDraging) {
+            // 更新快照位置
+            updateDragView();
+            // 更新当前被替换的位置
+            updateItemView();
+        } else if (mIsDeleting) {
+            // 移动将要删除的条目
+            moveDeleting();
+        }
+    }
+
     /**
      * 判断位置是否有效
      * @param position 需判断的位置
@@ -326,40 +837,70 @@ public class DragListView extends ListView {
                 || position >= getHeaderViewsCount() + mAdapter.getCount());
     }
 
-    private void recycleVelocityTracker() {
-        if (mVelocityTracker != null){
-            mVelocityTracker.recycle();
-            mVelocityTracker = null;
+    /**
+     * 分页方式下，按住的数据（整组拖拽时为所有选中的数据）需已加载
+     */
+    private boolean isDragDataLoaded(int position) {
+        int headerCount = getHeaderViewsCount();
+        if (!mAdapter.isItemLoaded(position - headerCount)) {
+            return false;
+        }
+        if (getChoiceMode() == CHOICE_MODE_MULTIPLE && isItemChecked(position)) {
+            for (int selected : getSelectedDataPositions()) {
+                if (!mAdapter.isItemLoaded(selected)) {
+                    return false;
+                }
+            }
         }
+        return true;
     }
 
-    private void startDeleting() {
-        mIsDeleting = true;
-        mDeletingItem = getItemView(mDeletingPosition);
-        if (mDeletingItem != null) {
-            mDeletingItemAlpha = mDeletingItem.getAlpha();
-            mDeletingItem.setAlpha(DRAG_PHOTO_VIEW_ALPHA);
+    /**
+     * 开始删除时才获取速度追踪器，之后一直复用，只清空数据
+     * @param ev 开始删除时的事件
+     */
+    private void obtainVelocityTracker(MotionEvent ev) {
+        if (mVelocityTracker == null) {
+            mVelocityTracker = VelocityTracker.obtain();
+        } else {
+            mVelocityTracker.clear();
         }
+        mVelocityTracker.addMovement(ev);
     }
 
-    private void moveDeleting() {
-        if (mDeletingItem != null) {
-            // 向左运动，并同步透明度
-            int scrollX = Math.max(mDownX - mMoveX, 0);
-            // 超过宽度，变成全透明
-            int transparentBorder = mDeletingItem.getWidth();
-            float percent = CommonTool.estimatePercent(0, transparentBorder, Math.min(scrollX, transparentBorder));
-            float alpha = CommonTool.estimateFloat(DRAG_PHOTO_VIEW_ALPHA, 0, percent);
-            // 参数内正数表示向负轴方向运动
-            mDeletingItem.scrollTo(scrollX, 0);
-            mDeletingItem.setAlpha(alpha);
+    private void recycleVelocityTracker() {
+        if (mVelocityTracker != null){
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
         }
     }
 
-    private void stopDeleting() {
-        if (mDeletingItem != null) {
-            int scrollX = mDeletingItem.getScrollX();
-            int width = mDeletingItem.getWidth();
+    private boolean startDeleting() {
+        // 已在删除动画中的条目，不能再次删除；分页方式下未加载的条目只是占位
+        int index = mDeletingPosition - getHeaderViewsCount();
+        if (findPendingDelete(index) != null || !mAdapter.isItemLoaded(index)) {
+            return false;
+        }
+        View item = getItemView(mDeletingPosition);
+        if (item == null) {
+            return false;
+        }
+        mIsDeleting = true;
+        mDeletingItemAlpha = item.getAlpha();
+        item.setAlpha(DRAG_PHOTO_VIEW_ALPHA);
+        return true;
+    }
+
+    private void moveDeleting() {
+        // 条目可能因其他条目删除而重新布局，按位置同步
+        syncDeletingViews();
+    }
+
+    private void stopDeleting() {
+        View item = getItemView(mDeletingPosition);
+        if (item != null) {
+            int scrollX = (int) -item.getTranslationX();
+            int width = item.getWidth();
             // 代表监测每100毫秒移动的距离（像素）
             mVelocityTracker.computeCurrentVelocity(100);
 
@@ -369,8 +910,10 @@ public class DragListView extends ListView {
                 int delta = width - scrollX;
                 float percent = CommonTool.estimatePercent(width, 0, delta);
                 int duration = CommonTool.estimateInt(250, 0, percent); // 250是系统默认时间
-                mScroller.startScroll(scrollX, 0, delta, 0, duration);
-                invalidate(); // 强制刷新界面，确保computeScroll()执行
+                PendingDelete pendingDelete = obtainPendingDelete();
+                // 时长为0时动画在start()中就会结束，先加入列表
+                mPendingDeletes.add(pendingDelete);
+                pendingDelete.start(mDeletingPosition - getHeaderViewsCount(), scrollX, duration);
             }else{
                 resetDeleteItem();
             }
@@ -380,119 +923,285 @@ public class DragListView extends ListView {
 
     private void resetDeleteItem(){
         // 还原位置及透明度
-        if (mDeletingItem != null){
-            mDeletingItem.scrollTo(0, 0);
-            mDeletingItem.setAlpha(mDeletingItemAlpha);
-            mDeletingItem = null;
+        View item = getItemView(mDeletingPosition);
+        if (item != null){
+            item.setTranslationX(0);
+            item.setAlpha(mDeletingItemAlpha);
         }
     }
-    @Override
-    public void computeScroll() {
-        // 判断是否还有偏移量，true-还有偏移量，未完成
-        if (mScroller.computeScrollOffset()){
-            mDeletingItem.scrollTo(mScroller.getCurrX(), mScroller.getCurrY());
-            postInvalidate(); // 刷新界面
-            // 判断是否完成
-            if (mScroller.isFinished()){
-                // 防止显示完全时，最后一个被删除会产生闪烁
-                if (isShowAll() && mDeletingPosition == getAdapter().getCount() - 1){
-                    mDeletingItem = null;
-                }else{
-                    resetDeleteItem();
-                }
-                mAdapter.deleteData(mDeletingPosition - getHeaderViewsCount());
+
+    /**
+     * 按位置同步所有正在删除的条目的偏移和透明度，并还原被复用的条目
+     */
+    private void syncDeletingViews() {
+        int firstPosition = getFirstVisiblePosition();
+        int headerCount = getHeaderViewsCount();
+        int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            int position = firstPosition + i;
+            if (!isPositionValid(position)) {
+                continue;
+            }
+            View child = getChildAt(i);
+            if (mIsDeleting && position == mDeletingPosition) {
+                int scrollX = Math.max(mDownX - mMoveX, 0);
+                // 向左运动，并同步透明度。超过宽度，变成全透明
+                int transparentBorder = child.getWidth();
+                float percent = CommonTool.estimatePercent(0, transparentBorder, Math.min(scrollX, transparentBorder));
+                child.setTranslationX(-scrollX);
+                child.setAlpha(CommonTool.estimateFloat(DRAG_PHOTO_VIEW_ALPHA, 0, percent));
+                continue;
+            }
+            PendingDelete pendingDelete = findPendingDelete(position - headerCount);
+            if (pendingDelete != null) {
+                // 条目重新布局后可能换了View，由动画接管当前位置上的View
+                pendingDelete.bindView(child);
+                continue;
+            }
+            PendingDelete owner = findPendingDelete(child);
+            if (owner != null) {
+                owner.releaseView();
+            } else if (child.getTranslationX() != 0) {
+                child.setTranslationX(0);
+                child.setAlpha(mDeletingItemAlpha);
             }
         }
-        super.computeScroll();
     }
 
-    private boolean startDrag() {
-        // 实际在ListView中的位置，因为涉及到条目的复用
-        final View itemView = getItemView(mDragPosition);
-        if (itemView == null) {
-            return false;
+    /**
+     * 删除动画结束，真正删除数据
+     */
+    private void commitDelete(int index) {
+        if (mBatchDelete) {
+            mAdapter.markDeletedData(index);
+            removeCallbacks(mCompactRunnable);
+            postDelayed(mCompactRunnable, COMPACT_DELAY);
+        } else {
+            mAdapter.deleteData(index);
         }
-        // 进行绘图缓存
-        itemView.setDrawingCacheEnabled(true);
-        // 提取缓存中的图片
-        mDragPhotoBitmap = Bitmap.createBitmap(itemView.getDrawingCache());
-        // 清除绘图缓存，否则复用的时候，会出现前一次的图片。或使用销毁destroyDrawingCache()
-        itemView.setDrawingCacheEnabled(false);
+    }
 
-        // 隐藏。为了防止隐藏时出现画面闪烁，使用动画去除闪烁效果
-        Animation aAnim = new AlphaAnimation(1f, DRAG_PHOTO_VIEW_ALPHA);
-        aAnim.setDuration(50);
-        aAnim.setAnimationListener(new Animation.AnimationListener() {
-            @Override
-            public void onAnimationStart(Animation animation) {
+    private PendingDelete obtainPendingDelete() {
+        if (mRecycledDeletes.isEmpty()) {
+            return new PendingDelete();
+        }
+        return mRecycledDeletes.remove(mRecycledDeletes.size() - 1);
+    }
+
+    private PendingDelete findPendingDelete(int index) {
+        for (int i = 0; i < mPendingDeletes.size(); i++) {
+            if (mPendingDeletes.get(i).index == index) {
+                return mPendingDeletes.get(i);
             }
+        }
+        return null;
+    }
 
-            @Override
-            public void onAnimationEnd(Animation animation) {
-                if (mIsDraging && mToPosition == mDragPosition) {
-                    itemView.setVisibility(View.INVISIBLE);
-                }
+    private PendingDelete findPendingDelete(View view) {
+        for (int i = 0; i < mPendingDeletes.size(); i++) {
+            if (mPendingDeletes.get(i).view == view) {
+                return mPendingDeletes.get(i);
             }
+        }
+        return null;
+    }
 
-            @Override
-            public void onAnimationRepeat(Animation animation) {
+    private boolean startDrag() {
+        // 实际在ListView中的位置，因为涉及到条目的复用
+        View itemView = getItemView(mDragPosition);
+        if (itemView == null) {
+            return false;
+        }
+        if (itemView.getWidth() <= 0 || itemView.getHeight() <= 0) {
+            return false;
+        }
+        // 按住的是选中的条目且选中了多条时，整组一起拖拽
+        mIsMultiDragging = false;
+        if (getChoiceMode() == CHOICE_MODE_MULTIPLE && isItemChecked(mDragPosition)) {
+            int[] positions = getSelectedDataPositions();
+            if (positions.length > 1) {
+                mIsMultiDragging = true;
+                mMultiDragPositions = positions;
             }
-        });
-        itemView.startAnimation(aAnim);
+        }
+        // 多选时在条目下叠放几层，表示拖拽的是一组
+        mDragPhotoLayers = mIsMultiDragging ? Math.min(mMultiDragPositions.length - 1, STACK_MAX_LAYERS) : 0;
+        int stackOffset = mDragPhotoLayers * mStackLayerOffset;
+        int width = itemView.getWidth() + stackOffset;
+        int height = itemView.getHeight() + stackOffset;
+        if (canDrawLiveDragPhoto() && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            // 直接绘制条目，不复制像素。拖拽期间条目不能被复用
+            mDragLiveView = itemView;
+            itemView.setHasTransientState(true);
+        } else {
+            createDragPhotoBitmap(itemView, width, height);
+        }
+
+        // 隐藏。为了防止隐藏时出现画面闪烁，使用动画去除闪烁效果
+        if (mDragHideAnimation == null) {
+            mDragHideAnimation = new AlphaAnimation(1f, DRAG_PHOTO_VIEW_ALPHA);
+            mDragHideAnimation.setDuration(50);
+            mDragHideAnimation.setAnimationListener(mDragHideListener);
+        }
+        mDragHideView = itemView;
+        itemView.startAnimation(mDragHideAnimation);
 
         mItemOffsetX = mDownX - itemView.getLeft();
         mItemOffsetY = mDownY - itemView.getTop();
         mDragItemHeight = itemView.getHeight();
-//        mMinDragY = mRawOffsetY;
-        mMinDragY = mRawOffsetY ;
-        // 根据是否显示完全，设定快照在Y轴上可拖到的最大值
-        if (isShowAll()) {
-            mMaxDragY = mRawOffsetY + getChildAt(getAdapter().getCount() - 1).getTop();
-        } else {
-            mMaxDragY = mRawOffsetY + getHeight() - mDragItemHeight;
-        }
-        createDragPhotoView();
+        updateDragBounds();
+        createDragPhotoView(width, height);
         return true;
     }
 
     /**
-     * 判断ListView是否全部显示，即无法上下滚动了
+     * 是否可以直接绘制条目作为快照：需要硬件加速，且拖拽期间数据不变（延迟排序），条目才能一直保持原来的内容。
+     * 另外需要Android 4.1及以上，以暂态防止条目被复用
      */
-    private boolean isShowAll() {
-        if (getChildCount() == 0) {
-            return true;
+    private boolean canDrawLiveDragPhoto() {
+        return mLiveDragPhoto && (mDeferReorder || mIsMultiDragging) && isHardwareAccelerated();
+    }
+
+    /**
+     * 把条目绘制到快照图片上：只截取在ListView中可见的部分，并按比例缩小
+     */
+    private void createDragPhotoBitmap(View itemView, int width, int height) {
+        int top = Math.max(0, -itemView.getTop());
+        int bottom = Math.max(top + 1, Math.min(height, getHeight() - itemView.getTop()));
+        mDragPhotoSrc.set(0, top, width, bottom);
+        int bitmapWidth = Math.max(1, Math.round(width * mDragPhotoScale));
+        int bitmapHeight = Math.max(1, Math.round((bottom - top) * mDragPhotoScale));
+        Bitmap.Config config = mDragPhotoRgb565 ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+        // 从图片池中取图，直接把条目绘制上去，不再经过绘图缓存
+        mDragPhotoBitmap = mDragPhotoPool.get(bitmapWidth, bitmapHeight, config);
+        mDragPhotoCanvas.setBitmap(mDragPhotoBitmap);
+        int save = mDragPhotoCanvas.save();
+        mDragPhotoCanvas.scale((float) bitmapWidth / width, (float) bitmapHeight / (bottom - top));
+        mDragPhotoCanvas.translate(0, -top);
+        drawDragPhoto(mDragPhotoCanvas, itemView);
+        mDragPhotoCanvas.restoreToCount(save);
+        mDragPhotoCanvas.setBitmap(null);
+    }
+
+    /**
+     * 绘制条目及其下叠放的层
+     */
+    private void drawDragPhoto(Canvas canvas, View itemView) {
+        for (int i = mDragPhotoLayers; i > 0; i--) {
+            int save = canvas.save();
+            canvas.translate(i * mStackLayerOffset, i * mStackLayerOffset);
+            itemView.draw(canvas);
+            canvas.restoreToCount(save);
+        }
+        itemView.draw(canvas);
+    }
+
+    /**
+     * 根据第一个和最后一个数据条目的位置，设定快照在Y轴上可拖到的范围（不超过Header和Footer）
+     */
+    private void updateDragBounds() {
+        int firstDataPosition = getHeaderViewsCount();
+        int lastDataPosition = firstDataPosition + mAdapter.getCount() - 1;
+        mMinDragY = Math.max(0, getRowTop(firstDataPosition));
+        mMaxDragY = Math.max(mMinDragY, Math.min(getHeight() - mDragItemHeight, getRowTop(lastDataPosition)));
+    }
+
+    /**
+     * 记录正在显示的条目高度（含分割线）
+     */
+    private void recordRowHeights() {
+        int count = getCount();
+        if (mRowHeights.size() != count) {
+            mRowHeights.reset(count);
         }
+        int dividerHeight = getDividerHeight();
+        int firstPosition = getFirstVisiblePosition();
+        int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            mRowHeights.setHeight(firstPosition + i, getChildAt(i).getHeight() + dividerHeight);
+        }
+    }
+
+    /**
+     * 内容已滚过的距离，即内容顶部到ListView内容区顶部的距离
+     */
+    private int getContentOffset() {
         View firstChild = getChildAt(0);
-        int itemAllHeight = firstChild.getBottom() - firstChild.getTop() + getDividerHeight();
-        return itemAllHeight * getAdapter().getCount() < getHeight();
+        if (firstChild == null) {
+            return 0;
+        }
+        return mRowHeights.getOffset(getFirstVisiblePosition()) - (firstChild.getTop() - getPaddingTop());
     }
 
     /**
-     * 创建拖拽快照
+     * 任意位置（包括未显示的）的条目顶部在ListView中的y坐标
      */
-    private void createDragPhotoView() {
-        // 获取当前窗口管理器
-        mWindowManager = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
-        // 创建布局参数
-        mWindowLayoutParams = new WindowManager.LayoutParams();
-        mWindowLayoutParams.width = WindowManager.LayoutParams.WRAP_CONTENT;
-        mWindowLayoutParams.height = WindowManager.LayoutParams.WRAP_CONTENT;
-        mWindowLayoutParams.gravity = Gravity.TOP | Gravity.START;
-        mWindowLayoutParams.format = PixelFormat.TRANSLUCENT; // 期望的图片为半透明效果，然而并没有看到不一样的效果
-        // 下面这些参数能够帮助准确定位到选中项点击位置
-        mWindowLayoutParams.flags = WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE
-                | WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE
-                | WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON
-                | WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN;
-        mWindowLayoutParams.windowAnimations = 0; // 无动画
-        mWindowLayoutParams.alpha = DRAG_PHOTO_VIEW_ALPHA; // 微透明
+    private int getRowTop(int position) {
+        return mRowHeights.getOffset(position) - getContentOffset() + getPaddingTop();
+    }
 
-        mWindowLayoutParams.x = mDownX + mRawOffsetX - mItemOffsetX;
-        mWindowLayoutParams.y = adjustDragY(mDownY + mRawOffsetY - mItemOffsetY);
+    @Override
+    protected int computeVerticalScrollRange() {
+        if (getChildCount() == 0 || mRowHeights.size() != getCount()) {
+            return super.computeVerticalScrollRange();
+        }
+        return mRowHeights.getTotalHeight();
+    }
 
-        mDragPhotoView = new ImageView(getContext());
-        mDragPhotoView.setImageBitmap(mDragPhotoBitmap);
-        mWindowManager.addView(mDragPhotoView, mWindowLayoutParams);
+    @Override
+    protected int computeVerticalScrollOffset() {
+        if (getChildCount() == 0 || mRowHeights.size() != getCount()) {
+            return super.computeVerticalScrollOffset();
+        }
+        return Math.max(0, getContentOffset());
+    }
+
+    @Override
+    protected int computeVerticalScrollExtent() {
+        if (getChildCount() == 0 || mRowHeights.size() != getCount()) {
+            return super.computeVerticalScrollExtent();
+        }
+        return getHeight() - getPaddingTop() - getPaddingBottom();
+    }
+
+    /**
+     * 创建拖拽快照：确定绘制区域，并只刷新该区域
+     */
+    private void createDragPhotoView(int width, int height) {
+        int left = mDownX - mItemOffsetX;
+        int top = adjustDragY(mDownY - mItemOffsetY);
+        mDragPhotoRect.set(left, top, left + width, top + height);
+        invalidate(mDragPhotoRect);
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        // 在所有条目之上绘制拖拽快照
+        if (mDragLiveView != null) {
+            // 硬件加速时，条目的子View以各自的显示列表绘制，只重新记录少量绘制命令
+            int save = saveLayerAlphaCompat(canvas, mDragPhotoRect, mDragPhotoPaint.getAlpha());
+            canvas.translate(mDragPhotoRect.left, mDragPhotoRect.top);
+            drawDragPhoto(canvas, mDragLiveView);
+            canvas.restoreToCount(save);
+        } else if (mDragPhotoBitmap != null) {
+            mDragPhotoDst.set(mDragPhotoSrc);
+            mDragPhotoDst.offset(mDragPhotoRect.left, mDragPhotoRect.top);
+            canvas.drawBitmap(mDragPhotoBitmap, null, mDragPhotoDst, mDragPhotoPaint);
+        } else {
+            return;
+        }
+        if (mMetricsActive && mDragMetrics.snapshotLatencyMillis < 0) {
+            mDragMetrics.snapshotLatencyMillis = SystemClock.uptimeMillis() - mMetricsDownTime;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int saveLayerAlphaCompat(Canvas canvas, Rect bounds, int alpha) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return canvas.saveLayerAlpha(bounds.left, bounds.top, bounds.right, bounds.bottom, alpha);
+        }
+        return canvas.saveLayerAlpha(bounds.left, bounds.top, bounds.right, bounds.bottom, alpha, Canvas.ALL_SAVE_FLAG);
     }
 
     /**
@@ -522,20 +1231,47 @@ public class DragListView extends ListView {
     }
 
     private void updateDragView() {
-        if (mDragPhotoView != null) {
-            mWindowLayoutParams.y = adjustDragY(mMoveY + mRawOffsetY - mItemOffsetY);
-            mWindowManager.updateViewLayout(mDragPhotoView, mWindowLayoutParams);
+        if (mDragPhotoBitmap != null || mDragLiveView != null) {
+            updateDragBounds();
+            int top = adjustDragY(mMoveY - mItemOffsetY);
+            if (top == mDragPhotoRect.top) {
+                return;
+            }
+            // 只刷新快照移动前后的区域
+            invalidate(mDragPhotoRect);
+            mDragPhotoRect.offsetTo(mDragPhotoRect.left, top);
+            invalidate(mDragPhotoRect);
         }
     }
 
     private void updateItemView() {
-        int position = pointToPosition(mMoveX, mMoveY);
+        updateDropTarget();
+        // 如果当前位置已经不到一个条目，则逐帧自动滚动
+        updateAutoScroll();
+    }
+
+    /**
+     * 根据触摸位置更新目标位置，并调换或偏移条目
+     */
+    private void updateDropTarget() {
+        // 按条目的布局位置（忽略偏移）确定目标，避免偏移后的条目来回抖动
+        int position = getLayoutPosition(mMoveY);
         if (isPositionValid(position)) {
+            if (mMetricsActive && position != mToPosition) {
+                mDragMetrics.swapCount++;
+            }
             mToPosition = position;
         }
+        if (mIsMultiDragging) {
+            // 多选拖拽时只记录目标位置，松手时整组移动
+            return;
+        }
+        if (mDeferReorder) {
+            applyPendingMoveOffsets();
+        }
 
         // 调换位置，并把显示进行调换
-        if (mFromPosition != mToPosition) {
+        if (!mDeferReorder && mFromPosition != mToPosition) {
             if (exchangePosition()) {
                 View view = getItemView(mFromPosition);
                 if (view != null) {
@@ -549,40 +1285,296 @@ public class DragListView extends ListView {
             }
         }
 
-        // 如果当前位置已经不到一个条目，则进行上或下的滚动。并根据距离边界的距离，设定滚动速度
+    }
+
+    /**
+     * 快照进入上下边缘区域时，开始逐帧自动滚动
+     */
+    private void updateAutoScroll() {
+        float depth = getAutoScrollDepth();
+        if (depth == 0) {
+            // 离开边缘后，下一帧自动停止
+            return;
+        }
+        int direction = depth < 0 ? -1 : 1;
+        long now = SystemClock.uptimeMillis();
+        if (direction != mAutoScrollDirection) {
+            mAutoScrollDirection = direction;
+            mAutoScrollStartTime = now;
+        }
+        if (!mAutoScrolling) {
+            mAutoScrolling = true;
+            mAutoScrollFrameTime = now;
+            postOnAnimationCompat(mAutoScrollRunnable);
+        }
+    }
+
+    /**
+     * 快照进入边缘区域的深度，根据距离边界的距离确定
+     *
+     * @return -1.0f ~ 1.0f，负数为上边缘，正数为下边缘，0为不在边缘区域
+     */
+    private float getAutoScrollDepth() {
+        if (mDragItemHeight <= 0) {
+            return 0;
+        }
         int dragY = mMoveY - mItemOffsetY;
         if (dragY < mDragItemHeight) {
             int value = Math.max(0, dragY); // 防越界
-            float percent = CommonTool.estimatePercent(mDragItemHeight, 0, value);
-            // 第1种方法，smoothScrollBy()
-//            int distance = CommonTool.estimateInt(0, -mMaxDistance, percent);
-//            smoothScrollBy(distance, SMOOTH_SCROLL_DURATION);
-
-            // 第2种方法：第1种有时在复杂的情况，会出现卡顿，慢速的问题
-            View toView = getItemView(mToPosition);
-            if (null == toView) {
-                return;
+            return -CommonTool.estimatePercent(mDragItemHeight, 0, value);
+        }
+        int zoneTop = getHeight() - 2 * mDragItemHeight;
+        if (dragY > zoneTop) {
+            int value = Math.min(dragY - zoneTop, mDragItemHeight); // 防越界
+            return CommonTool.estimatePercent(0, mDragItemHeight, value);
+        }
+        return 0;
+    }
+
+    /**
+     * 自动滚动的一帧：速度由进入边缘的深度和停留时间决定，并不超过最大距离。滚动后更新目标位置
+     */
+    private void doAutoScrollFrame() {
+        float depth = getAutoScrollDepth();
+        int direction = depth < 0 ? -1 : (depth > 0 ? 1 : 0);
+        if (!mIsDraging || direction == 0 || !canAutoScroll(direction)) {
+            stopAutoScroll();
+            if (mIsDraging) {
+                // 处理停止前最后的触摸位置
+                updateDragView();
+                updateDropTarget();
+            }
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        if (direction != mAutoScrollDirection) {
+            mAutoScrollDirection = direction;
+            mAutoScrollStartTime = now;
+        }
+        // 在边缘停留越久，速度越快
+        float ramp = Math.min(1f, CommonTool.estimateFloat(AUTO_SCROLL_MIN_RAMP, 1f,
+                Math.min(1f, (now - mAutoScrollStartTime) / (float) AUTO_SCROLL_RAMP_TIME)));
+        // 按实际帧间隔折算，掉帧时速度不变
+        float frames = Math.max(1f, Math.min(AUTO_SCROLL_MAX_FRAMES, (now - mAutoScrollFrameTime) / (float) FRAME_TIME));
+        mAutoScrollFrameTime = now;
+        int distance = Math.max(1, (int) (mMaxDistance * Math.abs(depth) * ramp * frames));
+        distance = Math.min(distance, (int) (mMaxDistance * frames));
+        // 不超过剩余可滚动的距离
+        int remaining = direction < 0
+                ? getContentOffset()
+                : mRowHeights.getTotalHeight() - getContentOffset() - (getHeight() - getPaddingTop() - getPaddingBottom());
+        if (remaining > 0) {
+            distance = Math.min(distance, remaining);
+        }
+        scrollListByCompat(direction * distance);
+        recordRowHeights();
+        if (mMetricsActive) {
+            mDragMetrics.autoScrollDistance += distance;
+        }
+
+        // 手指不动时，目标位置也随滚动更新
+        updateDragView();
+        updateDropTarget();
+        postOnAnimationCompat(mAutoScrollRunnable);
+    }
+
+    /**
+     * 是否还能向指定方向滚动
+     *
+     * @param direction 负数为向上，正数为向下
+     */
+    private boolean canAutoScroll(int direction) {
+        int childCount = getChildCount();
+        if (childCount == 0) {
+            return false;
+        }
+        if (direction < 0) {
+            return getFirstVisiblePosition() > 0 || getChildAt(0).getTop() < getPaddingTop();
+        }
+        return getFirstVisiblePosition() + childCount < getCount()
+                || getChildAt(childCount - 1).getBottom() > getHeight() - getPaddingBottom();
+    }
+
+    private void stopAutoScroll() {
+        removeCallbacks(mAutoScrollRunnable);
+        mAutoScrolling = false;
+        mAutoScrollDirection = 0;
+    }
+
+    private void scrollListByCompat(int y) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            scrollListBy(y);
+        } else {
+            View firstChild = getChildAt(0);
+            if (firstChild != null) {
+                setSelectionFromTop(getFirstVisiblePosition(), firstChild.getTop() - y);
+            }
+        }
+    }
+
+    private void postOnAnimationCompat(Runnable action) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            postOnAnimation(action);
+        } else {
+            postDelayed(action, FRAME_TIME);
+        }
+    }
+
+    /**
+     * 根据Y坐标，按条目的布局位置（不含translationY偏移）获取ListView中的位置
+     *
+     * @param y ListView中的y坐标
+     * @return 对应的位置，无对应条目时返回INVALID_POSITION
+     */
+    private int getLayoutPosition(int y) {
+        int childCount = getChildCount();
+        if (childCount == 0) {
+            return AdapterView.INVALID_POSITION;
+        }
+        if (mEdgesFirstPosition != getFirstVisiblePosition() || mEdgesChildCount != childCount) {
+            refreshChildEdges();
+        }
+        // 滚动只整体平移条目，按第一个条目的移动量换算
+        int edgeY = y - (getChildAt(0).getTop() - mChildEdges[0]);
+        if (edgeY < mChildEdges[0] || edgeY >= mChildEdges[childCount]) {
+            return AdapterView.INVALID_POSITION;
+        }
+        int index = mLastHitIndex;
+        if (index < 0 || index >= childCount || edgeY < mChildEdges[index] || edgeY >= mChildEdges[index + 1]) {
+            if (mUniformRowHeight > 0) {
+                // 等高的条目直接计算
+                index = (edgeY - mChildEdges[0]) / mUniformRowHeight;
+            } else {
+                index = binarySearchEdges(edgeY, childCount);
+            }
+        }
+        mLastHitIndex = index;
+        return mEdgesFirstPosition + index;
+    }
+
+    /**
+     * 查找edges[index] <= y < edges[index + 1]的index
+     */
+    private int binarySearchEdges(int y, int childCount) {
+        int low = 0;
+        int high = childCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (mChildEdges[mid] <= y) {
+                low = mid;
+            } else {
+                high = mid - 1;
             }
-            int y = toView.getTop() + CommonTool.estimateInt(0, 10, percent);
-            setSelectionFromTop(mToPosition, y);
-        } else if (dragY > getHeight() - 2 * mDragItemHeight) {
-            int value = Math.max(0, getHeight() - dragY - mDragItemHeight); // 防越界
-            float percent = CommonTool.estimatePercent(mDragItemHeight, 0, value);
-//            int distance = CommonTool.estimateInt(0, mMaxDistance, percent);
-//            smoothScrollBy(distance, SMOOTH_SCROLL_DURATION);
+        }
+        return low;
+    }
 
-            View toView = getItemView(mToPosition);
-            if (null == toView) {
+    /**
+     * 记录条目的上边缘（最后一项为最后一个条目的下边缘加分割线），布局后刷新
+     */
+    private void refreshChildEdges() {
+        int childCount = getChildCount();
+        if (mChildEdges.length < childCount + 1) {
+            mChildEdges = new int[childCount + 1];
+        }
+        int dividerHeight = getDividerHeight();
+        mUniformRowHeight = -1;
+        for (int i = 0; i < childCount; i++) {
+            View child = getChildAt(i);
+            mChildEdges[i] = child.getTop();
+            int rowHeight = child.getHeight() + dividerHeight;
+            if (i == 0) {
+                mUniformRowHeight = rowHeight;
+            } else if (mUniformRowHeight != rowHeight || mChildEdges[i] != mChildEdges[i - 1] + rowHeight) {
+                mUniformRowHeight = 0;
+            }
+        }
+        View lastChild = getChildAt(childCount - 1);
+        mChildEdges[childCount] = lastChild == null ? 0 : lastChild.getBottom() + dividerHeight;
+        mEdgesFirstPosition = getFirstVisiblePosition();
+        mEdgesChildCount = childCount;
+    }
+
+    /**
+     * 延迟排序时，根据待移动的起止位置，偏移两者之间的条目，并隐藏被拖拽的条目
+     */
+    private void applyPendingMoveOffsets() {
+        int distance = mDragItemHeight + getDividerHeight();
+        int firstPosition = getFirstVisiblePosition();
+        int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            View child = getChildAt(i);
+            int position = firstPosition + i;
+            float offset = 0;
+            if (mFromPosition < mToPosition && position > mFromPosition && position <= mToPosition) {
+                offset = -distance;
+            } else if (mFromPosition > mToPosition && position >= mToPosition && position < mFromPosition) {
+                offset = distance;
+            }
+            setItemOffset(child, position, offset);
+            if (!isPositionValid(position)) {
+                continue;
+            }
+            child.setVisibility(position == mDragPosition ? View.INVISIBLE : View.VISIBLE);
+        }
+    }
+
+    /**
+     * 清除延迟排序时产生的偏移和隐藏
+     */
+    private void clearPendingMoveOffsets() {
+        int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            View child = getChildAt(i);
+            resetItemOffset(child);
+            if (isPositionValid(getFirstVisiblePosition() + i)) {
+                child.setVisibility(View.VISIBLE);
+            }
+        }
+    }
+
+    /**
+     * 还原条目的偏移。偏移动画只保存在条目的Tag中，随条目一起回收
+     */
+    private static void resetItemOffset(View child) {
+        ItemOffset itemOffset = (ItemOffset) child.getTag(R.id.drag_list_view_item_offset);
+        if (itemOffset != null) {
+            itemOffset.reset();
+        }
+    }
+
+    /**
+     * 设置条目的偏移。同一位置上的条目以动画移到新偏移，复用到新位置的条目直接就位
+     */
+    private void setItemOffset(View child, int position, float offset) {
+        ItemOffset itemOffset = (ItemOffset) child.getTag(R.id.drag_list_view_item_offset);
+        if (itemOffset == null) {
+            if (offset == 0 && child.getTranslationY() == 0) {
                 return;
             }
-            int y = toView.getTop() + CommonTool.estimateInt(0, -10, percent);
-            setSelectionFromTop(mToPosition, y);
+            itemOffset = new ItemOffset(child);
+            child.setTag(R.id.drag_list_view_item_offset, itemOffset);
+        }
+        itemOffset.moveTo(position, offset);
+    }
 
-//            // 或使用setSelectionFromTop(position, y)迅速滑动
-//            View itemView = getChildAt(mToPosition - getFirstVisiblePosition());
-//            int y = itemView.getTop() - 10;
-//            // 设置选定的条目，距离ListView顶部的距离为y
-//            setSelectionFromTop(mToPosition, y);
+    @Override
+    protected void layoutChildren() {
+        super.layoutChildren();
+        recordRowHeights();
+        refreshChildEdges();
+        // 滚动或重新布局后，复用的条目需要重新设置偏移
+        if (mIsDraging && mDeferReorder && !mIsMultiDragging) {
+            applyPendingMoveOffsets();
+        } else {
+            // 拖拽中被回收的条目松手时不在屏幕上，仍带着偏移，复用时还原
+            int childCount = getChildCount();
+            for (int i = 0; i < childCount; i++) {
+                resetItemOffset(getChildAt(i));
+            }
+        }
+        if (mIsDeleting || !mPendingDeletes.isEmpty()) {
+            syncDeletingViews();
         }
     }
 
@@ -590,31 +1582,121 @@ public class DragListView extends ListView {
      * 停止拖拽
      */
     private void stopDrag() {
-        // 显示坐标上的条目
-        View view = getItemView(mToPosition);
-        if (view != null) {
-            view.setVisibility(View.VISIBLE);
-        }
-        // 移除快照
-        if (mDragPhotoView != null) {
-            mWindowManager.removeView(mDragPhotoView);
-            mDragPhotoView.setImageDrawable(null);
-            mDragPhotoBitmap.recycle();
-            mDragPhotoBitmap = null;
-            mDragPhotoView = null;
+        stopAutoScroll();
+        // 先移除快照，直接绘制的条目恢复为可复用，再提交移动
+        releaseDragPhoto();
+        if (mIsMultiDragging) {
+            clearPendingMoveOffsets();
+            moveSelectedItems();
+            mIsMultiDragging = false;
+            mMultiDragPositions = null;
+        } else if (mDeferReorder) {
+            clearPendingMoveOffsets();
+            // 一次性提交移动
+            if (mFromPosition != mToPosition) {
+                exchangePosition();
+            }
+        } else {
+            // 显示坐标上的条目
+            View view = getItemView(mToPosition);
+            if (view != null) {
+                view.setVisibility(View.VISIBLE);
+            }
         }
         mIsDraging = false;
     }
 
+    /**
+     * 取消拖拽：还原条目，不提交移动。立即排序时拖拽中已完成的交换保留
+     */
+    private void cancelDrag() {
+        stopAutoScroll();
+        releaseDragPhoto();
+        if (mIsMultiDragging || mDeferReorder) {
+            clearPendingMoveOffsets();
+            mIsMultiDragging = false;
+            mMultiDragPositions = null;
+        } else {
+            View view = getItemView(mToPosition);
+            if (view != null) {
+                view.setVisibility(View.VISIBLE);
+            }
+        }
+        mIsDraging = false;
+    }
+
+    /**
+     * 移除快照
+     */
+    private void releaseDragPhoto() {
+        if (mDragLiveView != null) {
+            invalidate(mDragPhotoRect);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                mDragLiveView.setHasTransientState(false);
+            }
+            mDragLiveView = null;
+        }
+        if (mDragPhotoBitmap != null) {
+            invalidate(mDragPhotoRect);
+            // 放回图片池，供下次拖拽使用
+            mDragPhotoPool.put(mDragPhotoBitmap);
+            mDragPhotoBitmap = null;
+        }
+    }
+
+    /**
+     * 多选拖拽松手时，把选中的数据作为一组移动到目标位置，移动后仍保持选中
+     */
+    private void moveSelectedItems() {
+        int headerCount = getHeaderViewsCount();
+        int[] positions = mMultiDragPositions;
+        int count = positions.length;
+        int target = mToPosition - headerCount;
+        // 这组数据移动后的起始位置：目标之前未选中的数据个数；向下拖到未选中的数据上时，放在其后
+        int to = target;
+        boolean targetSelected = false;
+        for (int position : positions) {
+            if (position < target) {
+                to--;
+            } else if (position == target) {
+                targetSelected = true;
+            }
+        }
+        if (!targetSelected && mToPosition > mDragPosition) {
+            to++;
+        }
+        to = Math.max(0, Math.min(to, mAdapter.getCount() - count));
+        if (positions[0] == to && positions[count - 1] == to + count - 1) {
+            // 已连续排列在目标位置
+            return;
+        }
+        for (int position : positions) {
+            // 分页方式下，拖拽期间已被淘汰的数据不能移动
+            if (!mAdapter.isItemLoaded(position)) {
+                return;
+            }
+        }
+        // 选中状态随数据移动，见mDataChangeObserver
+        mAdapter.moveDatas(positions, to);
+    }
+
     /**
      * 调换位置
      */
     private boolean exchangePosition() {
         int itemCount = getAdapter().getCount();
+        int headerCount = getHeaderViewsCount();
+        // 分页方式下，移动的数据需已加载才能交给持久化队列
         if (mFromPosition >= 0 && mFromPosition < itemCount
-                && mToPosition >= 0 && mToPosition < itemCount) {
+                && mToPosition >= 0 && mToPosition < itemCount
+                && mAdapter.isItemLoaded(mFromPosition - headerCount)
+                && (mDeferReorder || mAdapter.isItemLoaded(mToPosition - headerCount))) {
 //            mAdapter.swapData(mFromPosition, mToPosition);
-            mAdapter.swapData(mFromPosition - getHeaderViewsCount(), mToPosition - getHeaderViewsCount());
+            if (mDeferReorder) {
+                mAdapter.moveData(mFromPosition - getHeaderViewsCount(), mToPosition - getHeaderViewsCount());
+            } else {
+                mAdapter.swapData(mFromPosition - getHeaderViewsCount(), mToPosition - getHeaderViewsCount());
+            }
             return true;
         }
         return false;
@@ -643,23 +1725,128 @@ public class DragListView extends ListView {
     }
 
 
+    /**
+     * 数据从from移动到to后，原index位置的数据所在的新位置
+     */
+    private static int movedIndex(int index, int from, int to) {
+        if (index == from) {
+            return to;
+        } else if (from < to && index > from && index <= to) {
+            return index - 1;
+        } else if (from > to && index >= to && index < from) {
+            return index + 1;
+        }
+        return index;
+    }
 
     /**
-     * 为了获取头部高度
+     * 从positionStart开始按order重排后，原index位置的数据所在的新位置
      */
-    @Override
-    public void addHeaderView(View v) {
-        mHeaderHeightSum += v.getMeasuredHeight();
-        super.addHeaderView(v);
+    private static int reorderedIndex(int index, int positionStart, int[] order) {
+        if (index >= positionStart && index < positionStart + order.length) {
+            for (int i = 0; i < order.length; i++) {
+                if (order[i] == index) {
+                    return positionStart + i;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 数据位置变化后，取出选中的数据位置（不含Header）并清除选中状态，由restoreCheckedDataPositions()按新位置恢复。
+     * ListView自身只在原位置附近按ID查找，数据移动较远或ID不稳定时会丢失选中状态
+     *
+     * @return 没有选中的数据时返回null
+     */
+    private int[] takeCheckedDataPositions() {
+        if (getChoiceMode() == CHOICE_MODE_NONE || getCheckedItemCount() == 0) {
+            return null;
+        }
+        SparseBooleanArray checked = getCheckedItemPositions();
+        int headerCount = getHeaderViewsCount();
+        int[] positions = new int[checked.size()];
+        int count = 0;
+        for (int i = 0; i < checked.size(); i++) {
+            if (checked.valueAt(i)) {
+                positions[count++] = checked.keyAt(i) - headerCount;
+            }
+        }
+        clearChoices();
+        return Arrays.copyOf(positions, count);
+    }
+
+    /**
+     * 按新位置恢复选中状态，位置小于0的数据已删除
+     */
+    private void restoreCheckedDataPositions(int[] positions) {
+        int headerCount = getHeaderViewsCount();
+        for (int position : positions) {
+            if (position >= 0) {
+                setItemChecked(headerCount + position, true);
+            }
+        }
     }
 
     /**
-     * 为了获取底部高度
+     * 重新绑定数据索引在[start, end]范围内、且正在显示的条目。
+     * 条目高度不变时只对其重新布局，否则请求ListView重新布局
      */
+    private void rebindItems(int start, int end) {
+        int headerCount = getHeaderViewsCount();
+        int firstPosition = getFirstVisiblePosition();
+        int childCount = getChildCount();
+        boolean needLayout = false;
+        for (int i = 0; i < childCount; i++) {
+            int index = firstPosition + i - headerCount;
+            if (index < start || index > end || index >= mAdapter.getCount()) {
+                continue;
+            }
+            View child = getChildAt(i);
+            if (mAdapter.rebindView(index, child, this) != child) {
+                // 适配器没有复用原条目，只能整体刷新
+                mAdapter.notifyDataSetChanged();
+                return;
+            }
+            ViewGroup.LayoutParams lp = child.getLayoutParams();
+            int heightSpec = lp != null && lp.height > 0
+                    ? MeasureSpec.makeMeasureSpec(lp.height, MeasureSpec.EXACTLY)
+                    : MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+            child.measure(MeasureSpec.makeMeasureSpec(child.getWidth(), MeasureSpec.EXACTLY), heightSpec);
+            if (child.getMeasuredHeight() != child.getHeight()) {
+                needLayout = true;
+            } else {
+                child.layout(child.getLeft(), child.getTop(), child.getRight(), child.getBottom());
+            }
+        }
+        if (needLayout) {
+            requestLayout();
+        }
+    }
+
     @Override
-    public void addFooterView(View v) {
-        mFooterHeightSum += v.getMeasuredHeight();
-        super.addFooterView(v);
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        stopAutoScroll();
+        removeCallbacks(mTouchFrameRunnable);
+        mTouchFramePending = false;
+        mDragHideView = null;
+        releaseDragPhoto();
+        recycleVelocityTracker();
+        if (mFrameMonitor != null) {
+            mFrameMonitor.stop();
+        }
+        mMetricsActive = false;
+        // 不会再有布局，直接回调
+        if (mMetricsPending) {
+            removeCallbacks(mMetricsRunnable);
+            dispatchMetrics();
+        }
+        if (mAdapter != null && mPendingDeletes.isEmpty()) {
+            removeCallbacks(mCompactRunnable);
+            mAdapter.compactDeletedData();
+        }
+        mDragPhotoPool.clear();
     }
 
     /**
@@ -671,7 +1858,11 @@ public class DragListView extends ListView {
         if (!(adapter instanceof DragListViewAdapter)) {
             throw new RuntimeException("Please use its own adapter: DragListViewAdapter");
         }
+        if (mAdapter != null) {
+            mAdapter.unregisterDataChangeObserver(mDataChangeObserver);
+        }
         mAdapter = (DragListViewAdapter) adapter;
+        mAdapter.registerDataChangeObserver(mDataChangeObserver);
         super.setAdapter(adapter);
     }
 
@@ -689,4 +1880,375 @@ public class DragListView extends ListView {
     public int getMaxDistance() {
         return mMaxDistance;
     }
+
+    /**
+     * 设置快照图片池的内存预算(字节)，为0时不缓存
+     */
+    @SuppressWarnings("unused")
+    public void setDragPhotoPoolBytes(int maxBytes) {
+        mDragPhotoPool.setMaxBytes(maxBytes);
+    }
+
+    @SuppressWarnings("unused")
+    public int getDragPhotoPoolBytes() {
+        return mDragPhotoPool.getMaxBytes();
+    }
+
+    /**
+     * 设置是否直接绘制条目作为拖拽快照（默认开启）。开启后，硬件加速且延迟排序时，快照在ListView中直接绘制被拖拽的条目，
+     * 不再把条目复制到图片上，开始拖拽时不需要软件绘制和分配内存。条件不满足时仍使用快照图片
+     */
+    @SuppressWarnings("unused")
+    public void setLiveDragPhotoEnabled(boolean enabled) {
+        if (!mIsDraging) {
+            mLiveDragPhoto = enabled;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public boolean isLiveDragPhotoEnabled() {
+        return mLiveDragPhoto;
+    }
+
+    /**
+     * 设置快照图片的缩放比例(0.0f ~ 1.0f]，默认0.5。比例越小，图片内存和绘制到图片上的开销越小，但越模糊
+     */
+    @SuppressWarnings("unused")
+    public void setDragPhotoScale(float scale) {
+        if (scale > 0 && scale <= 1) {
+            mDragPhotoScale = scale;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public float getDragPhotoScale() {
+        return mDragPhotoScale;
+    }
+
+    /**
+     * 设置快照图片是否使用RGB_565，内存减半。条目背景不透明时才可使用，否则透明部分显示为黑色
+     */
+    @SuppressWarnings("unused")
+    public void setDragPhotoRgb565Enabled(boolean enabled) {
+        mDragPhotoRgb565 = enabled;
+    }
+
+    @SuppressWarnings("unused")
+    public boolean isDragPhotoRgb565Enabled() {
+        return mDragPhotoRgb565;
+    }
+
+    /**
+     * 设置是否合并触摸事件。开启后，拖拽和删除时一帧内只处理最新的触摸位置，
+     * 速度仍按全部的历史采样点计算。适合高采样率的触摸屏
+     */
+    @SuppressWarnings("unused")
+    public void setCoalesceTouchEventsEnabled(boolean enabled) {
+        mCoalesceTouch = enabled;
+    }
+
+    @SuppressWarnings("unused")
+    public boolean isCoalesceTouchEventsEnabled() {
+        return mCoalesceTouch;
+    }
+
+    /**
+     * 设置是否批量删除。开启后，左滑删除的数据先被标记删除并隐藏，列表空闲时再一次性移除。
+     * 此时适配器的getItemView()中需通过getItem(position)获取数据
+     */
+    @SuppressWarnings("unused")
+    public void setBatchDeleteEnabled(boolean enabled) {
+        mBatchDelete = enabled;
+    }
+
+    @SuppressWarnings("unused")
+    public boolean isBatchDeleteEnabled() {
+        return mBatchDelete;
+    }
+
+    /**
+     * 设置是否开启多选。开启后点击条目切换选中状态（选中的条目为activated状态，条目背景可据此显示选中效果），
+     * 按住选中条目的拖拽区域时，所有选中的数据叠放成一个快照一起拖拽，松手时作为一组一次性移动到目标位置
+     */
+    @SuppressWarnings("unused")
+    public void setMultiSelectEnabled(boolean enabled) {
+        if (!mIsDraging) {
+            setChoiceMode(enabled ? CHOICE_MODE_MULTIPLE : CHOICE_MODE_NONE);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public boolean isMultiSelectEnabled() {
+        return getChoiceMode() == CHOICE_MODE_MULTIPLE;
+    }
+
+    /**
+     * 获取选中的数据位置（不含Header），升序
+     */
+    public int[] getSelectedDataPositions() {
+        SparseBooleanArray checked = getCheckedItemPositions();
+        if (checked == null || mAdapter == null) {
+            return new int[0];
+        }
+        int headerCount = getHeaderViewsCount();
+        int dataCount = mAdapter.getCount();
+        int[] positions = new int[checked.size()];
+        int count = 0;
+        for (int i = 0; i < checked.size(); i++) {
+            int position = checked.keyAt(i) - headerCount;
+            if (checked.valueAt(i) && position >= 0 && position < dataCount) {
+                positions[count++] = position;
+            }
+        }
+        return Arrays.copyOf(positions, count);
+    }
+
+    /**
+     * 设置是否延迟排序（默认开启）。开启后，拖拽过程中不再逐行交换数据，中间条目以动画让出位置，松手时一次性移动
+     */
+    @SuppressWarnings("unused")
+    public void setDeferReorderEnabled(boolean enabled) {
+        if (!mIsDraging) {
+            mDeferReorder = enabled;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public boolean isDeferReorderEnabled() {
+        return mDeferReorder;
+    }
+
+    /**
+     * 设置性能数据的监听器。每次拖拽或删除手势结束时回调，可上报到线上统计。为null时不做任何统计
+     */
+    @SuppressWarnings("unused")
+    public void setOnDragMetricsListener(OnDragMetricsListener listener) {
+        mOnDragMetricsListener = listener;
+        if (listener == null) {
+            if (mMetricsActive) {
+                mMetricsActive = false;
+                if (mFrameMonitor != null) {
+                    mFrameMonitor.stop();
+                }
+            }
+            if (mMetricsPending) {
+                mMetricsPending = false;
+                removeCallbacks(mMetricsRunnable);
+            }
+        }
+    }
+
+    /**
+     * 性能数据的监听器
+     */
+    public interface OnDragMetricsListener {
+
+        /**
+         * @param metrics 本次手势的数据。对象会被复用，不要在回调之外持有
+         */
+        void onDragMetrics(DragMetrics metrics);
+    }
+
+    /**
+     * 松手后正在执行删除动画的条目。
+     * 先在硬件层上以平移和透明度滑出，只改变View的属性而不重绘条目；再收起高度，最后才删除数据。
+     * 动画结束由最后一帧的进度判断：Android 6.0及以下每次start()和结束都会复制AnimatorListener列表，复用时仍会分配对象
+     */
+    private class PendingDelete implements ValueAnimator.AnimatorUpdateListener {
+        /**
+         * 数据索引，其他条目增删时由数据变化观察者修正
+         */
+        int index;
+        /**
+         * 当前执行动画的View，条目被复用时会更换
+         */
+        View view;
+
+        /**
+         * 滑出和收起高度的动画，分开使用：在最后一帧的回调中重新start()同一个动画，
+         * 回调返回后动画随即结束并清除运行状态，收起动画就不会执行
+         */
+        private final ValueAnimator mAnimator = ValueAnimator.ofFloat(0f, 1f);
+        private final ValueAnimator mCollapseAnimator = ValueAnimator.ofFloat(0f, 1f);
+        /**
+         * 是否已滑出，正在收起高度
+         */
+        private boolean mCollapsing;
+        private int mStartX;
+        private int mCollapseHeight;
+        private float mRestoreAlpha;
+        /**
+         * 接管View前的布局高度和图层类型，释放时还原
+         */
+        private int mRestoreHeight;
+        private int mRestoreLayerType;
+
+        PendingDelete() {
+            mAnimator.addUpdateListener(this);
+            mCollapseAnimator.setDuration(DELETE_COLLAPSE_DURATION);
+            mCollapseAnimator.addUpdateListener(this);
+        }
+
+        void start(int index, int startX, int duration) {
+            this.index = index;
+            mStartX = startX;
+            mCollapsing = false;
+            mRestoreAlpha = mDeletingItemAlpha;
+            bindView(getItemView(index + getHeaderViewsCount()));
+            mAnimator.setDuration(duration);
+            mAnimator.start();
+        }
+
+        /**
+         * 接管View，并按当前进度设置其属性
+         */
+        void bindView(View child) {
+            if (child != view) {
+                releaseView();
+                PendingDelete owner = child == null ? null : findPendingDelete(child);
+                if (owner != null) {
+                    owner.releaseView();
+                }
+                view = child;
+                if (child != null) {
+                    mRestoreHeight = child.getLayoutParams().height;
+                    mRestoreLayerType = child.getLayerType();
+                    if (!mCollapsing) {
+                        child.setLayerType(LAYER_TYPE_HARDWARE, null);
+                    }
+                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                        // 防止动画中的View被ListView复用到其他位置
+                        child.setHasTransientState(true);
+                    }
+                }
+            }
+            apply();
+        }
+
+        /**
+         * 还原View的所有属性，不再接管
+         */
+        void releaseView() {
+            if (view == null) {
+                return;
+            }
+            view.setTranslationX(0);
+            view.setAlpha(mRestoreAlpha);
+            if (view.getLayerType() != mRestoreLayerType) {
+                view.setLayerType(mRestoreLayerType, null);
+            }
+            ViewGroup.LayoutParams lp = view.getLayoutParams();
+            if (lp.height != mRestoreHeight) {
+                lp.height = mRestoreHeight;
+                view.setLayoutParams(lp);
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                view.setHasTransientState(false);
+            }
+            view = null;
+        }
+
+        private void apply() {
+            if (view == null) {
+                return;
+            }
+            float fraction = (mCollapsing ? mCollapseAnimator : mAnimator).getAnimatedFraction();
+            int width = view.getWidth();
+            if (mCollapsing) {
+                view.setTranslationX(-width);
+                view.setAlpha(0);
+                // 高度为0时ListView会按内容测量，所以至少保留1像素
+                ViewGroup.LayoutParams lp = view.getLayoutParams();
+                int height = Math.max(1, CommonTool.estimateInt(mCollapseHeight, 0, fraction));
+                if (lp.height != height) {
+                    lp.height = height;
+                    view.setLayoutParams(lp);
+                }
+            } else {
+                // 向左运动，并同步透明度。超过宽度，变成全透明
+                int scrollX = CommonTool.estimateInt(mStartX, width, fraction);
+                float percent = CommonTool.estimatePercent(0, width, Math.min(scrollX, width));
+                view.setTranslationX(-scrollX);
+                view.setAlpha(CommonTool.estimateFloat(DRAG_PHOTO_VIEW_ALPHA, 0, percent));
+            }
+        }
+
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            // 列表布局变化后，按位置找回条目
+            bindView(getItemView(index + getHeaderViewsCount()));
+            if (animation.getAnimatedFraction() >= 1f) {
+                onFinished(animation);
+            }
+        }
+
+        /**
+         * 一段动画的最后一帧
+         */
+        private void onFinished(ValueAnimator animation) {
+            if (animation == mAnimator && view != null && view.getHeight() > 1) {
+                // 已滑出，去掉硬件层后收起高度，下方条目随之平滑上移
+                mCollapsing = true;
+                mCollapseHeight = view.getHeight();
+                view.setLayerType(mRestoreLayerType, null);
+                mCollapseAnimator.start();
+                return;
+            }
+            // 先删除数据再还原View。两者都在下次布局前完成，不会闪烁
+            mPendingDeletes.remove(this);
+            commitDelete(index);
+            releaseView();
+            mRecycledDeletes.add(this);
+        }
+    }
+
+    /**
+     * 拖拽时条目在Y轴上的偏移动画，只改变translationY，不涉及数据和getView()
+     */
+    private static class ItemOffset implements ValueAnimator.AnimatorUpdateListener {
+        private final View mView;
+        private final ValueAnimator mAnimator = ValueAnimator.ofFloat(0f, 1f);
+        /**
+         * 上次设置偏移时条目所在的位置，及目标偏移
+         */
+        private int mPosition = AdapterView.INVALID_POSITION;
+        private float mTarget;
+        private float mFrom;
+
+        ItemOffset(View view) {
+            mView = view;
+            mAnimator.setDuration(ITEM_SHIFT_DURATION);
+            mAnimator.addUpdateListener(this);
+        }
+
+        void moveTo(int position, float target) {
+            if (position != mPosition) {
+                mAnimator.cancel();
+                mView.setTranslationY(target);
+            } else if (target != mTarget) {
+                mAnimator.cancel();
+                mFrom = mView.getTranslationY();
+                mTarget = target;
+                mAnimator.start();
+            }
+            mPosition = position;
+            mTarget = target;
+        }
+
+        void reset() {
+            if (mPosition == AdapterView.INVALID_POSITION) {
+                // 未设置过偏移或已还原
+                return;
+            }
+            mAnimator.cancel();
+            mView.setTranslationY(0);
+            mPosition = AdapterView.INVALID_POSITION;
+            mTarget = 0;
+        }
+
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            mView.setTranslationY(mFrom + (mTarget - mFrom) * animation.getAnimatedFraction());
+        }
+    }
 }
@@ -1,12 +1,18 @@
 package com.zjun.view.drag_list_view;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.BaseAdapter;
 
-import java.util.Collections;
+import com.zjun.draglistview_lib.R;
+
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Created by Ralap on 2016/5/10.
@@ -16,54 +22,484 @@ public abstract class DragListViewAdapter<T> extends BaseAdapter{
     protected Context mContext;
     protected List<T> mDragDatas;
 
+    /**
+     * 细粒度的数据变化观察者
+     */
+    private final List<DataChangeObserver> mDataChangeObservers = new ArrayList<>();
+
+    /**
+     * 数据ID提供者。设置后ID稳定，条目可按ID复用而不必重新绑定
+     * @see #setIdProvider(IdProvider)
+     */
+    private IdProvider<T> mIdProvider;
+
+    /**
+     * 绑定的版本号。数据内容可能变化时(notifyDataSetChanged)递增，使已绑定的条目失效
+     */
+    private int mBindGeneration;
+
+    /**
+     * getItemView()的累计调用次数，用于统计重新绑定的条目数
+     */
+    private int mBindCount;
+
+    /**
+     * 数据模型，负责移动、删除、插入、撤销/重做及排序键。mDragDatas与其数据列表保持一致
+     */
+    private final DragDataModel<T> mDataModel;
+
+    private final DragDataModel.Callback mDataModelCallback = new DragDataModel.Callback() {
+        @Override
+        public void onItemMoved(int from, int to) {
+            notifyItemMoved(from, to);
+        }
+
+        @Override
+        public void onItemsSwapped(int i, int j) {
+            if (mDataChangeObservers.isEmpty()) {
+                notifyStructureChanged();
+                return;
+            }
+            for (int k = mDataChangeObservers.size() - 1; k >= 0; k--) {
+                mDataChangeObservers.get(k).onItemsSwapped(i, j);
+            }
+        }
+
+        @Override
+        public void onItemRangeReordered(int positionStart, int[] order) {
+            if (mDataChangeObservers.isEmpty()) {
+                notifyStructureChanged();
+                return;
+            }
+            for (int i = mDataChangeObservers.size() - 1; i >= 0; i--) {
+                mDataChangeObservers.get(i).onItemRangeReordered(positionStart, order);
+            }
+        }
+
+        @Override
+        public void onItemRemoved(int position) {
+            notifyItemRemoved(position);
+        }
+
+        @Override
+        public void onItemInserted(int position) {
+            notifyItemInserted(position);
+        }
+
+        @Override
+        public void onDataSetChanged() {
+            notifyDataSetChanged();
+        }
+    };
+
     public DragListViewAdapter(Context context, List<T> dataList){
         this.mContext = context;
         this.mDragDatas = dataList;
+        mDataModel = new DragDataModel<>(dataList);
+        mDataModel.setCallback(mDataModelCallback);
     }
 
     @Override
     public int getCount() {
-        return mDragDatas == null ? 0 : mDragDatas.size();
+        return mDataModel.size();
     }
 
     @Override
     public T getItem(int position) {
-        return mDragDatas.get(position);
+        return mDataModel.get(position);
     }
 
     @Override
     public long getItemId(int position) {
-        return position;
+        return mIdProvider == null ? position : mIdProvider.getId(getItem(position));
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return mIdProvider != null;
     }
 
     @Override
     public View getView(int position, View convertView, ViewGroup parent) {
-        return getItemView(position, convertView, parent);
+        // ID稳定时，复用的条目若已绑定同一数据且内容未变，则无需重新绑定
+        if (mIdProvider != null && convertView != null) {
+            Object tag = convertView.getTag(R.id.drag_list_view_bound_item);
+            if (tag instanceof BoundItem
+                    && ((BoundItem) tag).id == getItemId(position)
+                    && ((BoundItem) tag).generation == mBindGeneration) {
+                return convertView;
+            }
+        }
+        return rebindView(position, convertView, parent);
+    }
+
+    /**
+     * 强制重新绑定条目，并记录其绑定的数据ID
+     */
+    View rebindView(int position, View convertView, ViewGroup parent) {
+        mBindCount++;
+        View view = getItemView(position, convertView, parent);
+        if (mIdProvider != null && view != null) {
+            Object tag = view.getTag(R.id.drag_list_view_bound_item);
+            BoundItem boundItem;
+            if (tag instanceof BoundItem) {
+                boundItem = (BoundItem) tag;
+            } else {
+                boundItem = new BoundItem();
+                view.setTag(R.id.drag_list_view_bound_item, boundItem);
+            }
+            boundItem.id = getItemId(position);
+            boundItem.generation = mBindGeneration;
+        }
+        return view;
+    }
+
+    int getBindCount() {
+        return mBindCount;
     }
 
+    /**
+     * 获取条目。数据请通过getItem(position)获取：存在标记删除的数据时，position与mDragDatas中的索引不一致。
+     * 分页方式下未加载的数据为null，此时显示占位，加载完成后会重新绑定
+     */
     public abstract View getItemView(int position, View convertView, ViewGroup parent);
 
     public void swapData(int from, int to){
-        Collections.swap(mDragDatas, from, to);
-        notifyDataSetChanged();
+        mDataModel.swap(from, to);
+    }
+
+    /**
+     * 把from位置的数据移动到to位置，中间的数据依次顺移
+     */
+    public void moveData(int from, int to) {
+        mDataModel.move(from, to);
+    }
+
+    /**
+     * 把positions位置上的多条数据作为一组移动到to位置，组内保持原有顺序，只通知一次
+     * @see DragDataModel#moveItems(int[], int)
+     */
+    public void moveDatas(int[] positions, int to) {
+        mDataModel.moveItems(positions, to);
     }
 
     public void deleteData(int index) {
-        mDragDatas.remove(index);
-        notifyDataSetChanged();
+        mDataModel.delete(index);
     }
 
     public void addData(int location, T data) {
-        mDragDatas.add(location, data);
-        notifyDataSetChanged();
+        mDataModel.add(location, data);
+    }
+
+    /**
+     * 数据内容可能发生了变化，已绑定的条目全部失效
+     */
+    @Override
+    public void notifyDataSetChanged() {
+        mBindGeneration++;
+        super.notifyDataSetChanged();
+    }
+
+    /**
+     * 只有数据的位置或数量变化，内容未变。ID稳定时，条目可按ID复用
+     */
+    void notifyStructureChanged() {
+        super.notifyDataSetChanged();
+    }
+
+    /**
+     * 设置数据ID提供者，使ID稳定。需在DragListView.setAdapter()之前设置
+     */
+    public void setIdProvider(IdProvider<T> idProvider) {
+        mIdProvider = idProvider;
+    }
+
+    public IdProvider<T> getIdProvider() {
+        return mIdProvider;
     }
 
     public void setDataList(List<T> dataList) {
         mDragDatas = dataList;
-        notifyDataSetChanged();
+        mDataModel.setDataList(dataList);
     }
 
     public List<T> getDataList(){
-        return mDragDatas;
+        return mDataModel.getDataList();
+    }
+
+    /**
+     * 获取数据模型，可脱离ListView直接操作或测量
+     */
+    public DragDataModel<T> getDataModel() {
+        return mDataModel;
+    }
+
+    /**
+     * 标记删除数据：数据立即隐藏，但暂不从列表中移除，之后由compactDeletedData()一次性移除。
+     * 适合连续删除多条数据
+     *
+     * @param index 当前显示的位置
+     */
+    public void markDeletedData(int index) {
+        mDataModel.markDeleted(index);
+    }
+
+    /**
+     * 一次性移除所有标记删除的数据。显示内容不变，无需刷新
+     */
+    public void compactDeletedData() {
+        mDataModel.compact();
+    }
+
+    /**
+     * 把显示的位置转换为mDragDatas中的索引，跳过标记删除的数据
+     */
+    protected int toDataIndex(int position) {
+        return mDataModel.toDataIndex(position);
+    }
+
+    /**
+     * 设置操作日志。设置后，移动、交换、删除和插入都会被记录，可撤销/重做
+     */
+    public void setOperationJournal(OperationJournal journal) {
+        mDataModel.setOperationJournal(journal);
+    }
+
+    public OperationJournal getOperationJournal() {
+        return mDataModel.getOperationJournal();
+    }
+
+    /**
+     * 设置持久化队列。设置后，移动、交换、删除和插入都会在后台合并写入，无需在主线程中持久化
+     */
+    public void setWriteBehindQueue(WriteBehindQueue<T> queue) {
+        mDataModel.setWriteBehindQueue(queue);
+    }
+
+    public WriteBehindQueue<T> getWriteBehindQueue() {
+        return mDataModel.getWriteBehindQueue();
+    }
+
+    /**
+     * 撤销最近一次操作
+     *
+     * @return 是否有可撤销的操作
+     */
+    public boolean undo() {
+        return mDataModel.undo();
+    }
+
+    /**
+     * 重做最近一次撤销的操作
+     *
+     * @return 是否有可重做的操作
+     */
+    public boolean redo() {
+        return mDataModel.redo();
+    }
+
+    /**
+     * 设置排序键的读写器。设置后，每次移动或插入只为移动的数据生成一个介于前后数据之间的排序键，
+     * 持久化时只需写入变化的数据；键过长时才重新分配附近数据的键。
+     * 数据还没有排序键时，先调用{@link #assignOrderKeys()}
+     *
+     * @param listener 每次提交后，收到排序键发生变化的数据
+     */
+    public void setOrderKeyAccessor(OrderKeyAccessor<T> accessor, OnOrderKeysChangedListener<T> listener) {
+        mDataModel.setOrderKeyAccessor(accessor, listener);
+    }
+
+    /**
+     * 按当前顺序为所有数据重新分配排序键
+     */
+    public void assignOrderKeys() {
+        mDataModel.assignOrderKeys();
+    }
+
+    /**
+     * 以排列方式使用数据：源数据列表保持不变，拖拽和删除只修改显示顺序。此方式下不能添加数据
+     * @see #getPermutation()
+     */
+    public void setPermutedDataList(List<T> sourceList) {
+        setDataList(new PermutedList<>(sourceList));
+    }
+
+    /**
+     * 以分页方式使用数据：只加载显示区域附近的数据，未加载的位置getItem()返回null。
+     * 拖拽和删除以排列方式记录，拖过未加载的区域也不需要加载数据，通过{@link #getPermutation()}得到新的顺序。
+     * 此方式下不能添加数据，也不能使用排序键；使用IdProvider时需能处理null。
+     * 未加载的数据不能拖拽和删除，见{@link #isItemLoaded(int)}
+     */
+    public void setPagedDataList(PagedList<T> pagedList) {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        pagedList.setCallbackExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                handler.post(command);
+            }
+        });
+        pagedList.setOnPageLoadedListener(new PagedList.OnPageLoadedListener() {
+            @Override
+            public void onPageLoaded(int start, int count) {
+                notifySourceRangeChanged(start, count);
+            }
+        });
+        setPermutedDataList(pagedList);
+    }
+
+    /**
+     * 分页方式下，数据是否已加载。未加载的数据显示为占位，不能拖拽和删除
+     */
+    public boolean isItemLoaded(int position) {
+        return mDataModel.isLoaded(position);
+    }
+
+    /**
+     * 源数据[sourceStart, sourceStart + count)加载完成。排列后这些数据可能分散在各处，按连续的显示位置分段通知。
+     * 通过逆排列查找显示位置，只与页的大小有关，不遍历整个列表
+     */
+    private void notifySourceRangeChanged(int sourceStart, int count) {
+        if (mDataChangeObservers.isEmpty()) {
+            notifyDataSetChanged();
+            return;
+        }
+        int[] positions = new int[count];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            int position = mDataModel.getPosition(sourceStart + i);
+            if (position >= 0) {
+                positions[n++] = position;
+            }
+        }
+        Arrays.sort(positions, 0, n);
+        int runStart = 0;
+        for (int i = 1; i <= n; i++) {
+            if (i == n || positions[i] != positions[i - 1] + 1) {
+                dispatchItemRangeChanged(positions[runStart], i - runStart);
+                runStart = i;
+            }
+        }
+    }
+
+    /**
+     * 获取排列方式下当前的显示顺序，即每个位置对应的源数据位置
+     * @return 非排列方式时返回null
+     */
+    public int[] getPermutation() {
+        return mDataModel.getPermutation();
+    }
+
+    /**
+     * 注册数据变化观察者。没有观察者时，移动和内容变化仍通过notifyDataSetChanged()刷新
+     */
+    public void registerDataChangeObserver(DataChangeObserver observer) {
+        if (observer != null && !mDataChangeObservers.contains(observer)) {
+            mDataChangeObservers.add(observer);
+        }
+    }
+
+    public void unregisterDataChangeObserver(DataChangeObserver observer) {
+        mDataChangeObservers.remove(observer);
+    }
+
+    /**
+     * 通知数据从from位置移动到了to位置
+     */
+    public void notifyItemMoved(int from, int to) {
+        if (mDataChangeObservers.isEmpty()) {
+            notifyStructureChanged();
+            return;
+        }
+        for (int i = mDataChangeObservers.size() - 1; i >= 0; i--) {
+            mDataChangeObservers.get(i).onItemMoved(from, to);
+        }
+    }
+
+    /**
+     * 通知position位置的数据已删除。数量发生变化，ListView仍需要重新布局
+     */
+    public void notifyItemRemoved(int position) {
+        for (int i = mDataChangeObservers.size() - 1; i >= 0; i--) {
+            mDataChangeObservers.get(i).onItemRemoved(position);
+        }
+        notifyStructureChanged();
+    }
+
+    /**
+     * 通知在position位置插入了数据。数量发生变化，ListView仍需要重新布局
+     */
+    public void notifyItemInserted(int position) {
+        for (int i = mDataChangeObservers.size() - 1; i >= 0; i--) {
+            mDataChangeObservers.get(i).onItemInserted(position);
+        }
+        notifyStructureChanged();
+    }
+
+    /**
+     * 通知从positionStart开始的itemCount个数据内容发生了变化
+     */
+    public void notifyItemRangeChanged(int positionStart, int itemCount) {
+        if (mDataChangeObservers.isEmpty()) {
+            notifyDataSetChanged();
+            return;
+        }
+        dispatchItemRangeChanged(positionStart, itemCount);
+    }
+
+    private void dispatchItemRangeChanged(int positionStart, int itemCount) {
+        for (int i = mDataChangeObservers.size() - 1; i >= 0; i--) {
+            mDataChangeObservers.get(i).onItemRangeChanged(positionStart, itemCount);
+        }
+    }
+
+    /**
+     * 数据ID提供者，同一数据需始终返回相同的ID
+     */
+    public interface IdProvider<T> {
+
+        long getId(T item);
+    }
+
+    /**
+     * 排序键的读写器，排序键通常保存在数据自身中
+     */
+    public interface OrderKeyAccessor<T> extends DragDataModel.OrderKeyAccessor<T> {
+    }
+
+    /**
+     * 排序键变化的监听器
+     */
+    public interface OnOrderKeysChangedListener<T> extends DragDataModel.OnOrderKeysChangedListener<T> {
+    }
+
+    /**
+     * 条目上记录的已绑定数据
+     */
+    private static class BoundItem {
+        long id;
+        int generation;
+    }
+
+    /**
+     * 数据变化观察者，位置均为数据在列表中的索引（不含Header）
+     */
+    public interface DataChangeObserver {
+
+        void onItemMoved(int from, int to);
+
+        void onItemsSwapped(int i, int j);
+
+        /**
+         * 从positionStart开始的order.length个数据重新排列，数量不变
+         *
+         * @param order order[i]为重排后positionStart + i位置上的数据原来的位置
+         */
+        void onItemRangeReordered(int positionStart, int[] order);
+
+        void onItemRemoved(int position);
+
+        void onItemInserted(int position);
+
+        void onItemRangeChanged(int positionStart, int itemCount);
     }
 }
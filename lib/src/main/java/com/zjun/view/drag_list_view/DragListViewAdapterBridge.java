@@ -0,0 +1,154 @@
+package com.zjun.view.drag_list_view;
+
+import android.database.DataSetObserver;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+/**
+ * 把DragListViewAdapter包装为DragRecyclerView的适配器，已有的适配器无需修改即可在DragRecyclerView中使用
+ * 条目仍由getItemView()创建和复用，放在一个容器中；DragListViewAdapter的移动、删除和插入转为对应的notifyItemXxx()，
+ * 由ItemAnimator执行动画。之后可逐步改为直接实现RecyclerView.Adapter和{@link DragRecyclerView.DragAdapter}
+ */
+public class DragListViewAdapterBridge<T> extends RecyclerView.Adapter<DragListViewAdapterBridge.ItemHolder>
+        implements DragRecyclerView.DragAdapter {
+
+    private final DragListViewAdapter<T> mAdapter;
+
+    /**
+     * 删除和插入时，DragListViewAdapter先通知观察者，再通知整体刷新，后者已由notifyItemXxx()处理
+     */
+    private boolean mStructureNotified;
+
+    private final DragListViewAdapter.DataChangeObserver mDataChangeObserver = new DragListViewAdapter.DataChangeObserver() {
+        @Override
+        public void onItemMoved(int from, int to) {
+            notifyItemMoved(from, to);
+        }
+
+        @Override
+        public void onItemsSwapped(int i, int j) {
+            notifyItemChanged(i);
+            notifyItemChanged(j);
+        }
+
+        @Override
+        public void onItemRangeReordered(int positionStart, int[] order) {
+            notifyItemRangeChanged(positionStart, order.length);
+        }
+
+        @Override
+        public void onItemRemoved(int position) {
+            mStructureNotified = true;
+            notifyItemRemoved(position);
+        }
+
+        @Override
+        public void onItemInserted(int position) {
+            mStructureNotified = true;
+            notifyItemInserted(position);
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            notifyItemRangeChanged(positionStart, itemCount);
+        }
+    };
+
+    private final DataSetObserver mDataSetObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            if (mStructureNotified) {
+                mStructureNotified = false;
+                return;
+            }
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public void onInvalidated() {
+            notifyDataSetChanged();
+        }
+    };
+
+    public DragListViewAdapterBridge(DragListViewAdapter<T> adapter) {
+        mAdapter = adapter;
+        setHasStableIds(adapter.hasStableIds());
+    }
+
+    public DragListViewAdapter<T> getAdapter() {
+        return mAdapter;
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        mAdapter.registerDataChangeObserver(mDataChangeObserver);
+        mAdapter.registerDataSetObserver(mDataSetObserver);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        mAdapter.unregisterDataChangeObserver(mDataChangeObserver);
+        mAdapter.unregisterDataSetObserver(mDataSetObserver);
+    }
+
+    @Override
+    public int getItemCount() {
+        return mAdapter.getCount();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return mAdapter.getItemId(position);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return mAdapter.getItemViewType(position);
+    }
+
+    @Override
+    public ItemHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        // 创建时还不知道位置，条目在绑定时由getItemView()创建
+        FrameLayout container = new FrameLayout(parent.getContext());
+        container.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT));
+        return new ItemHolder(container);
+    }
+
+    @Override
+    public void onBindViewHolder(ItemHolder holder, int position) {
+        FrameLayout container = (FrameLayout) holder.itemView;
+        View convertView = container.getChildCount() > 0 ? container.getChildAt(0) : null;
+        // ID稳定时，已绑定同一数据且内容未变的条目不会重新绑定
+        View view = mAdapter.getView(position, convertView, container);
+        if (view != convertView) {
+            container.removeAllViews();
+            container.addView(view);
+        }
+    }
+
+    @Override
+    public boolean onItemMove(int from, int to) {
+        mAdapter.moveData(from, to);
+        return true;
+    }
+
+    @Override
+    public void onItemDelete(int position) {
+        mAdapter.deleteData(position);
+    }
+
+    /**
+     * 条目的容器
+     */
+    public static class ItemHolder extends RecyclerView.ViewHolder {
+
+        ItemHolder(View itemView) {
+            super(itemView);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.zjun.view.drag_list_view;
+
+/**
+ * 一次拖拽或删除手势的性能数据，手势结束时通过{@link DragListView.OnDragMetricsListener}回调。
+ * 对象会被复用，需要保存时请在回调中取出数值
+ */
+public class DragMetrics {
+
+    /**
+     * 拖拽排序
+     */
+    public static final int GESTURE_DRAG = 1;
+
+    /**
+     * 左滑删除
+     */
+    public static final int GESTURE_SWIPE = 2;
+
+    int gesture;
+    int itemCount;
+    long durationMillis;
+    long snapshotLatencyMillis = -1;
+    int swapCount;
+    int reboundRows;
+    int autoScrollDistance;
+    long touchTimeNanos;
+    int snapshotBytes;
+    int frameCount;
+    int framesOverBudget;
+
+    /**
+     * 手势开始时适配器已绑定的次数
+     */
+    int bindCountStart;
+
+    void reset(int gesture, int itemCount, int bindCount) {
+        this.gesture = gesture;
+        this.itemCount = itemCount;
+        durationMillis = 0;
+        snapshotLatencyMillis = -1;
+        swapCount = 0;
+        reboundRows = 0;
+        autoScrollDistance = 0;
+        touchTimeNanos = 0;
+        snapshotBytes = 0;
+        frameCount = 0;
+        framesOverBudget = 0;
+        bindCountStart = bindCount;
+    }
+
+    /**
+     * @return {@link #GESTURE_DRAG}或{@link #GESTURE_SWIPE}
+     */
+    public int getGesture() {
+        return gesture;
+    }
+
+    /**
+     * 手势开始时的数据个数
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * 从ACTION_DOWN到ACTION_UP的时长(ms)
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * 从ACTION_DOWN到快照第一次绘制的时长(ms)。删除手势或快照未绘制时为-1
+     */
+    public long getSnapshotLatencyMillis() {
+        return snapshotLatencyMillis;
+    }
+
+    /**
+     * 拖拽目标位置变化的次数。未开启延迟排序时，即交换数据的次数
+     */
+    public int getSwapCount() {
+        return swapCount;
+    }
+
+    /**
+     * 手势期间重新绑定的条目数，即适配器getItemView()的调用次数。包括松手后提交数据的布局，及删除动画结束前的布局
+     */
+    public int getReboundRows() {
+        return reboundRows;
+    }
+
+    /**
+     * 自动滚动的总距离(px)
+     */
+    public int getAutoScrollDistance() {
+        return autoScrollDistance;
+    }
+
+    /**
+     * 手势期间onTouchEvent()的总耗时(ns)
+     */
+    public long getTouchTimeNanos() {
+        return touchTimeNanos;
+    }
+
+    /**
+     * 快照图片占用的字节数，删除手势为0
+     */
+    public int getSnapshotBytes() {
+        return snapshotBytes;
+    }
+
+    /**
+     * 手势期间的帧数。低于Android 4.1时无法统计，为0
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * 手势期间超时（与上一帧的间隔超过1.5帧，按屏幕刷新率计算）的帧数。低于Android 4.1时为0
+     */
+    public int getFramesOverBudget() {
+        return framesOverBudget;
+    }
+}
@@ -0,0 +1,92 @@
+package com.zjun.view.drag_list_view;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 拖拽快照的图片池
+ * 按宽、高和Config复用Bitmap，总内存不超过设定的预算，超出时按最近最少使用的顺序回收
+ */
+class DragPhotoBitmapPool {
+
+    /**
+     * 缓存的图片，按使用时间排序，最后一个为最近放入的
+     */
+    private final List<Bitmap> mBitmaps = new ArrayList<>();
+
+    /**
+     * 缓存图片的总字节数
+     */
+    private int mSizeBytes;
+
+    /**
+     * 缓存图片的最大字节数
+     */
+    private int mMaxBytes;
+
+    DragPhotoBitmapPool(int maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * 获取指定尺寸和Config的图片，已清除为透明。池中没有时新建
+     */
+    Bitmap get(int width, int height, Bitmap.Config config) {
+        for (int i = mBitmaps.size() - 1; i >= 0; i--) {
+            Bitmap bitmap = mBitmaps.get(i);
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config) {
+                mBitmaps.remove(i);
+                mSizeBytes -= bitmap.getByteCount();
+                bitmap.eraseColor(Color.TRANSPARENT);
+                return bitmap;
+            }
+        }
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * 放回图片。超出预算的图片直接回收
+     */
+    void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        if (!bitmap.isMutable() || bitmap.getByteCount() > mMaxBytes) {
+            bitmap.recycle();
+            return;
+        }
+        mBitmaps.add(bitmap);
+        mSizeBytes += bitmap.getByteCount();
+        trimToSize(mMaxBytes);
+    }
+
+    /**
+     * 设置最大字节数，并回收超出部分
+     */
+    void setMaxBytes(int maxBytes) {
+        mMaxBytes = Math.max(0, maxBytes);
+        trimToSize(mMaxBytes);
+    }
+
+    int getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    /**
+     * 回收所有缓存的图片
+     */
+    void clear() {
+        trimToSize(0);
+    }
+
+    private void trimToSize(int maxBytes) {
+        while (mSizeBytes > maxBytes && !mBitmaps.isEmpty()) {
+            Bitmap bitmap = mBitmaps.remove(0);
+            mSizeBytes -= bitmap.getByteCount();
+            bitmap.recycle();
+        }
+    }
+}
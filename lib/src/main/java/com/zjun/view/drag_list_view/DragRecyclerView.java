@@ -0,0 +1,218 @@
+package com.zjun.view.drag_list_view;
+
+import android.content.Context;
+import android.support.v7.widget.DefaultItemAnimator;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.helper.ItemTouchHelper;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.zjun.view.CommonTool;
+
+/**
+ * 基于RecyclerView的可拖拽排序列表，手势与DragListView相同：
+ * 1、可拖拽排序（条目右边1/4空间内）
+ * 2、左滑可删除，删除的门槛速度与DragListView相同
+ * 移动和删除通过notifyItemMoved()/notifyItemRemoved()只刷新受影响的条目，并由ItemAnimator执行动画。
+ * 适配器需实现{@link DragAdapter}；已有的DragListViewAdapter可通过{@link #setDragListViewAdapter(DragListViewAdapter)}直接使用
+ */
+public class DragRecyclerView extends RecyclerView {
+
+    /**
+     * 超过条目宽度的这个比例时松手即删除
+     */
+    private static final float DELETE_WIDTH_FRACTION = 1 / 3f;
+
+    /**
+     * 拖拽到边缘自动滚动时，每帧的最大距离(px)，可进行设置
+     * @see #setMaxDistance(int)
+     */
+    private int mMaxDistance = 30;
+
+    /**
+     * 左滑删除的门槛速度(px/s)，由DragListView的门槛速度换算
+     */
+    private float mDeleteVelocity;
+
+    private ItemTouchHelper mItemTouchHelper;
+
+    /**
+     * 在条目右边1/4内按下时开始拖拽。须在ItemTouchHelper之后添加，使其先记录按下的位置
+     */
+    private final OnItemTouchListener mDragStartListener = new OnItemTouchListener() {
+        @Override
+        public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
+            if (e.getActionMasked() != MotionEvent.ACTION_DOWN || e.getX() < getWidth() * 3 / 4) {
+                return false;
+            }
+            View child = findChildViewUnder(e.getX(), e.getY());
+            if (child != null) {
+                ViewHolder holder = getChildViewHolder(child);
+                if (holder.getAdapterPosition() != NO_POSITION) {
+                    mItemTouchHelper.startDrag(holder);
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void onTouchEvent(RecyclerView rv, MotionEvent e) {
+        }
+
+        @Override
+        public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+        }
+    };
+
+    public DragRecyclerView(Context context) {
+        super(context);
+        initialize();
+    }
+
+    public DragRecyclerView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        initialize();
+    }
+
+    public DragRecyclerView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        initialize();
+    }
+
+    private void initialize() {
+        // DragListView的门槛速度为px/100ms，ItemTouchHelper为px/s
+        mDeleteVelocity = -CommonTool.dp2px(getContext(), DragListView.DELETE_X_THRESHOLD_DP) * 10;
+        if (getLayoutManager() == null) {
+            setLayoutManager(new LinearLayoutManager(getContext()));
+        }
+        setItemAnimator(new DefaultItemAnimator());
+        mItemTouchHelper = new ItemTouchHelper(new DragCallback());
+        mItemTouchHelper.attachToRecyclerView(this);
+        addOnItemTouchListener(mDragStartListener);
+    }
+
+    /**
+     * 设置适配器，需实现{@link DragAdapter}
+     */
+    @Override
+    public void setAdapter(Adapter adapter) {
+        if (adapter != null && !(adapter instanceof DragAdapter)) {
+            throw new RuntimeException("Please use an adapter implementing DragRecyclerView.DragAdapter, "
+                    + "or setDragListViewAdapter()");
+        }
+        super.setAdapter(adapter);
+    }
+
+    /**
+     * 直接使用DragListViewAdapter，便于从DragListView逐步迁移
+     * @return 包装后的适配器
+     */
+    public <T> DragListViewAdapterBridge<T> setDragListViewAdapter(DragListViewAdapter<T> adapter) {
+        DragListViewAdapterBridge<T> bridge = new DragListViewAdapterBridge<>(adapter);
+        setAdapter(bridge);
+        return bridge;
+    }
+
+    /**
+     * Setter and Getter
+     */
+    @SuppressWarnings("unused")
+    public void setMaxDistance(int maxDistance) {
+        if (maxDistance > 0) {
+            mMaxDistance = maxDistance;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public int getMaxDistance() {
+        return mMaxDistance;
+    }
+
+    /**
+     * 拖拽和删除的回调：上下拖拽，左滑删除
+     */
+    private class DragCallback extends ItemTouchHelper.Callback {
+
+        @Override
+        public int getMovementFlags(RecyclerView recyclerView, ViewHolder viewHolder) {
+            return makeMovementFlags(ItemTouchHelper.UP | ItemTouchHelper.DOWN, ItemTouchHelper.LEFT);
+        }
+
+        @Override
+        public boolean isLongPressDragEnabled() {
+            // 只在条目右边1/4内按下时拖拽
+            return false;
+        }
+
+        @Override
+        public boolean onMove(RecyclerView recyclerView, ViewHolder viewHolder, ViewHolder target) {
+            int from = viewHolder.getAdapterPosition();
+            int to = target.getAdapterPosition();
+            if (from == NO_POSITION || to == NO_POSITION) {
+                return false;
+            }
+            return ((DragAdapter) getAdapter()).onItemMove(from, to);
+        }
+
+        @Override
+        public void onSwiped(ViewHolder viewHolder, int direction) {
+            int position = viewHolder.getAdapterPosition();
+            if (position != NO_POSITION) {
+                ((DragAdapter) getAdapter()).onItemDelete(position);
+            }
+        }
+
+        @Override
+        public float getSwipeThreshold(ViewHolder viewHolder) {
+            return DELETE_WIDTH_FRACTION;
+        }
+
+        @Override
+        public float getSwipeEscapeVelocity(float defaultValue) {
+            return mDeleteVelocity;
+        }
+
+        @Override
+        public int interpolateOutOfBoundsScroll(RecyclerView recyclerView, int viewSize, int viewSizeOutOfBounds,
+                                                int totalSize, long msSinceStartScroll) {
+            int distance = super.interpolateOutOfBoundsScroll(recyclerView, viewSize, viewSizeOutOfBounds,
+                    totalSize, msSinceStartScroll);
+            return Math.max(-mMaxDistance, Math.min(mMaxDistance, distance));
+        }
+
+        @Override
+        public void onSelectedChanged(ViewHolder viewHolder, int actionState) {
+            super.onSelectedChanged(viewHolder, actionState);
+            // 拖拽和删除中的条目半透明，与DragListView一致
+            if (viewHolder != null && actionState != ItemTouchHelper.ACTION_STATE_IDLE) {
+                viewHolder.itemView.setAlpha(DragListView.DRAG_PHOTO_VIEW_ALPHA);
+            }
+        }
+
+        @Override
+        public void clearView(RecyclerView recyclerView, ViewHolder viewHolder) {
+            super.clearView(recyclerView, viewHolder);
+            viewHolder.itemView.setAlpha(1f);
+        }
+    }
+
+    /**
+     * DragRecyclerView的适配器需实现的接口。位置均为适配器中的位置
+     */
+    public interface DragAdapter {
+
+        /**
+         * 拖拽经过相邻条目时调用，需移动数据并调用notifyItemMoved()
+         *
+         * @return 是否已移动
+         */
+        boolean onItemMove(int from, int to);
+
+        /**
+         * 左滑删除时调用，需删除数据并调用notifyItemRemoved()
+         */
+        void onItemDelete(int position);
+    }
+}
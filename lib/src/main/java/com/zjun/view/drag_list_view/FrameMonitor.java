@@ -0,0 +1,73 @@
+package com.zjun.view.drag_list_view;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+/**
+ * 统计帧数及超时的帧数。依赖Choreographer，只能在Android 4.1及以上创建
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+class FrameMonitor implements Choreographer.FrameCallback {
+
+    /**
+     * 无法获取屏幕刷新率时使用的值(Hz)
+     */
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private boolean mRunning;
+    /**
+     * 两帧间隔超过此值(ns)即视为超时，为当前刷新率下的1.5帧
+     */
+    private long mFrameBudgetNanos;
+    private long mLastFrameTimeNanos;
+    private int mFrameCount;
+    private int mFramesOverBudget;
+
+    /**
+     * @param refreshRate 屏幕刷新率(Hz)，如Display.getRefreshRate()。不大于0时按60Hz
+     */
+    void start(float refreshRate) {
+        if (refreshRate <= 0) {
+            refreshRate = DEFAULT_REFRESH_RATE;
+        }
+        mFrameBudgetNanos = (long) (1.5f * 1000000000L / refreshRate);
+        mFrameCount = 0;
+        mFramesOverBudget = 0;
+        mLastFrameTimeNanos = 0;
+        if (!mRunning) {
+            mRunning = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    void stop() {
+        if (mRunning) {
+            mRunning = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    int getFrameCount() {
+        return mFrameCount;
+    }
+
+    int getFramesOverBudget() {
+        return mFramesOverBudget;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+        if (mLastFrameTimeNanos != 0) {
+            mFrameCount++;
+            if (frameTimeNanos - mLastFrameTimeNanos > mFrameBudgetNanos) {
+                mFramesOverBudget++;
+            }
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+}
@@ -0,0 +1,244 @@
+package com.zjun.view.drag_list_view;
+
+import java.util.Arrays;
+
+/**
+ * 行高的前缀和索引(树状数组)
+ * 记录每个位置测量到的高度，未测量的位置按预估高度计算。
+ * 查找任意位置的偏移量是O(log n)，用于拖拽边界、自动滚动和滚动条的计算。
+ * 命中测试只针对已布局的条目，由DragListView按条目边缘查找，不需要由偏移量反查位置
+ */
+class RowHeightIndex {
+
+    private static final int UNKNOWN = -1;
+
+    /**
+     * 每个位置测量到的高度，未测量时为UNKNOWN
+     */
+    private int[] mHeights = new int[0];
+
+    /**
+     * 树状数组，下标从1开始
+     */
+    private int[] mTree = new int[1];
+
+    private int mCount;
+
+    /**
+     * 未测量位置的预估高度，取第一次测量到的高度
+     */
+    private int mEstimatedHeight;
+
+    int size() {
+        return mCount;
+    }
+
+    /**
+     * 重置为count个未测量的位置
+     */
+    void reset(int count) {
+        mCount = count;
+        mHeights = new int[count];
+        Arrays.fill(mHeights, UNKNOWN);
+        rebuild();
+    }
+
+    /**
+     * 记录position位置测量到的高度
+     */
+    void setHeight(int position, int height) {
+        if (position < 0 || position >= mCount || mHeights[position] == height) {
+            return;
+        }
+        if (mEstimatedHeight == 0 && height > 0) {
+            mHeights[position] = height;
+            mEstimatedHeight = height;
+            rebuild();
+            return;
+        }
+        int delta = height - heightAt(position);
+        mHeights[position] = height;
+        add(position, delta);
+    }
+
+    /**
+     * 在position位置插入一个未测量的位置。
+     * 之后的位置都要后移，靠近末尾时逐个更新，为O(k log n)，k为之后的位置数；否则O(n)重建。
+     * 插入多发生在加载更多等末尾位置，数组预留空间，不会每次都分配
+     */
+    void insert(int position) {
+        if (position < 0 || position > mCount) {
+            return;
+        }
+        if (mHeights.length < mCount + 1) {
+            mHeights = Arrays.copyOf(mHeights, Math.max(mCount + 1, mHeights.length * 2));
+        }
+        int tail = mCount - position;
+        System.arraycopy(mHeights, position, mHeights, position + 1, tail);
+        mHeights[position] = UNKNOWN;
+        if (tail * 32 > mCount + 1) {
+            mCount++;
+            rebuild();
+            return;
+        }
+        // 先在末尾追加一个高度为0的位置，再更新后移的位置
+        ensureTreeCapacity(mCount + 2);
+        int node = mCount + 1;
+        mTree[node] = getOffset(mCount) - getOffset(node - (node & -node));
+        mCount++;
+        for (int i = position; i < mCount; i++) {
+            int before = i == mCount - 1 ? 0 : heightOf(mHeights[i + 1]);
+            int delta = heightAt(i) - before;
+            if (delta != 0) {
+                add(i, delta);
+            }
+        }
+    }
+
+    /**
+     * 移除position位置。与插入相同，靠近末尾时逐个更新，否则O(n)重建
+     */
+    void remove(int position) {
+        if (position < 0 || position >= mCount) {
+            return;
+        }
+        int tail = mCount - position - 1;
+        if (tail * 32 > mCount) {
+            System.arraycopy(mHeights, position + 1, mHeights, position, tail);
+            mCount--;
+            rebuild();
+            return;
+        }
+        for (int i = position; i < mCount; i++) {
+            // 最后一个位置先清零，去掉后不影响其他节点
+            int after = i == mCount - 1 ? 0 : heightOf(mHeights[i + 1]);
+            int delta = after - heightAt(i);
+            if (delta != 0) {
+                add(i, delta);
+            }
+        }
+        System.arraycopy(mHeights, position + 1, mHeights, position, tail);
+        mCount--;
+    }
+
+    /**
+     * 把from位置的高度移动到to位置。只更新两者之间的位置，范围较大时整体重建
+     */
+    void move(int from, int to) {
+        if (from == to || from < 0 || to < 0 || from >= mCount || to >= mCount) {
+            return;
+        }
+        int start = Math.min(from, to);
+        int end = Math.max(from, to);
+        int[] old = Arrays.copyOfRange(mHeights, start, end + 1);
+        int height = mHeights[from];
+        if (from < to) {
+            System.arraycopy(mHeights, from + 1, mHeights, from, to - from);
+        } else {
+            System.arraycopy(mHeights, to, mHeights, to + 1, from - to);
+        }
+        mHeights[to] = height;
+        if ((end - start + 1) * 32 > mCount) {
+            rebuild();
+            return;
+        }
+        for (int i = start; i <= end; i++) {
+            int delta = heightAt(i) - (old[i - start] == UNKNOWN ? mEstimatedHeight : old[i - start]);
+            if (delta != 0) {
+                add(i, delta);
+            }
+        }
+    }
+
+    /**
+     * 交换两个位置的高度
+     */
+    void swap(int i, int j) {
+        if (i == j || i < 0 || j < 0 || i >= mCount || j >= mCount) {
+            return;
+        }
+        int heightI = heightAt(i);
+        int heightJ = heightAt(j);
+        int height = mHeights[i];
+        mHeights[i] = mHeights[j];
+        mHeights[j] = height;
+        if (heightI != heightJ) {
+            add(i, heightJ - heightI);
+            add(j, heightI - heightJ);
+        }
+    }
+
+    /**
+     * 按order重新排列从start开始的order.length个位置的高度
+     *
+     * @param order order[i] + shift为重排后start + i位置原来的位置
+     */
+    void reorder(int start, int[] order, int shift) {
+        if (start < 0 || start + order.length > mCount) {
+            return;
+        }
+        int[] old = Arrays.copyOfRange(mHeights, start, start + order.length);
+        for (int i = 0; i < order.length; i++) {
+            int position = start + i;
+            int height = old[order[i] + shift - start];
+            int delta = (height == UNKNOWN ? mEstimatedHeight : height) - heightAt(position);
+            mHeights[position] = height;
+            if (delta != 0) {
+                add(position, delta);
+            }
+        }
+    }
+
+    /**
+     * position位置的顶部偏移量，即[0, position)的高度和
+     */
+    int getOffset(int position) {
+        int sum = 0;
+        for (int i = Math.min(position, mCount); i > 0; i -= i & -i) {
+            sum += mTree[i];
+        }
+        return sum;
+    }
+
+    int getTotalHeight() {
+        return getOffset(mCount);
+    }
+
+    private int heightAt(int position) {
+        return heightOf(mHeights[position]);
+    }
+
+    private int heightOf(int height) {
+        return height == UNKNOWN ? mEstimatedHeight : height;
+    }
+
+    private void add(int position, int delta) {
+        for (int i = position + 1; i <= mCount; i += i & -i) {
+            mTree[i] += delta;
+        }
+    }
+
+    private void ensureTreeCapacity(int length) {
+        if (mTree.length < length) {
+            mTree = Arrays.copyOf(mTree, Math.max(length, mTree.length * 2));
+        }
+    }
+
+    /**
+     * O(n)重建树状数组
+     */
+    private void rebuild() {
+        if (mTree.length < mCount + 1) {
+            mTree = new int[Math.max(mCount + 1, mTree.length * 2)];
+        } else {
+            Arrays.fill(mTree, 0);
+        }
+        for (int i = 1; i <= mCount; i++) {
+            mTree[i] += heightAt(i - 1);
+            int parent = i + (i & -i);
+            if (parent <= mCount) {
+                mTree[parent] += mTree[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.zjun.view.drag_list_view;
+
+import android.app.Activity;
+import android.os.Build;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.zjun.draglistview_lib.BuildConfig;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 测试DragListViewAdapter在DragRecyclerView中的刷新：移动和删除只通知受影响的条目
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class DragListViewAdapterBridgeTest {
+
+    private DragListViewAdapter<Integer> mAdapter;
+    private DragListViewAdapterBridge<Integer> mBridge;
+    private CountingObserver mObserver;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        List<Integer> datas = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            datas.add(i);
+        }
+        mAdapter = new DragListViewAdapter<Integer>(activity, datas) {
+            @Override
+            public View getItemView(int position, View convertView, ViewGroup parent) {
+                return convertView != null ? convertView : new View(mContext);
+            }
+        };
+        DragRecyclerView recyclerView = new DragRecyclerView(activity);
+        mBridge = recyclerView.setDragListViewAdapter(mAdapter);
+        mObserver = new CountingObserver();
+        mBridge.registerAdapterDataObserver(mObserver);
+    }
+
+    @Test
+    public void moveNotifiesItemMoved() {
+        mBridge.onItemMove(0, 1);
+
+        assertEquals(1, mObserver.moves);
+        assertEquals(0, mObserver.changes);
+        assertEquals(1, (int) mAdapter.getItem(0));
+    }
+
+    @Test
+    public void deleteNotifiesItemRemoved() {
+        mBridge.onItemDelete(2);
+
+        assertEquals(1, mObserver.removes);
+        // 不再整体刷新
+        assertEquals(0, mObserver.changes);
+        assertEquals(9, mBridge.getItemCount());
+    }
+
+    @Test
+    public void dataSetChangePassesThrough() {
+        mAdapter.notifyDataSetChanged();
+
+        assertEquals(1, mObserver.changes);
+    }
+
+    @Test
+    public void bindReusesItemView() {
+        FrameLayout container = new FrameLayout(mAdapter.mContext);
+        DragListViewAdapterBridge.ItemHolder holder = mBridge.onCreateViewHolder(container, 0);
+        mBridge.onBindViewHolder(holder, 0);
+        View itemView = ((ViewGroup) holder.itemView).getChildAt(0);
+        mBridge.onBindViewHolder(holder, 1);
+
+        assertSame(itemView, ((ViewGroup) holder.itemView).getChildAt(0));
+    }
+
+    private static class CountingObserver extends RecyclerView.AdapterDataObserver {
+        int changes;
+        int moves;
+        int removes;
+
+        @Override
+        public void onChanged() {
+            changes++;
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            removes++;
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            moves++;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.zjun.view.drag_list_view;
+
+import android.app.Activity;
+import android.os.Build;
+import android.view.View;
+
+import com.zjun.draglistview_lib.BuildConfig;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 模拟拖拽和删除手势，统计每个手势的绑定、刷新、布局和内存分配。
+ * 内存分配包括Robolectric的开销，按每帧的上限检查，用于发现随帧数增长的分配
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = Build.VERSION_CODES.LOLLIPOP)
+public class DragListViewGestureTest {
+    private static final int ROW_HEIGHT = 50;
+
+    /**
+     * 每帧允许分配的字节数上限，包括Robolectric模拟布局和事件的开销
+     */
+    private static final long MAX_ALLOCATED_BYTES_PER_FRAME = 256 * 1024;
+
+    /**
+     * 拖拽区域：条目右边1/4
+     */
+    private static final int DRAG_X = GestureHarness.WIDTH - 10;
+
+    private Activity mActivity;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.setupActivity(Activity.class);
+    }
+
+    @Test
+    public void longDragWithEdgeAutoscroll() {
+        GestureHarness harness = new GestureHarness(mActivity, 200, ROW_HEIGHT, 0, 0);
+        harness.begin();
+        harness.down(DRAG_X, ROW_HEIGHT + ROW_HEIGHT / 2);
+        harness.moveTo(DRAG_X, GestureHarness.HEIGHT - 5, 10);
+        // 停在下边缘，一直滚动到列表底部（加速约1秒，之后每帧最多30像素）
+        harness.hold(400);
+        DragListView listView = harness.getListView();
+        assertEquals(199, listView.getLastVisiblePosition());
+        harness.up();
+        GestureHarness.GestureStats stats = harness.end();
+        assertAllocationBounded(stats);
+
+        // 延迟排序：拖拽过程中不修改数据，松手时只移动一次，不刷新整个列表
+        assertEquals(0, stats.notifies);
+        // 每条数据滚入时绑定一次，松手后可见的条目再绑定一次
+        assertTrue(stats.toString(), stats.binds < 200 + 2 * listView.getChildCount());
+        // 第2条拖到了最后
+        DragListViewAdapter<Integer> adapter = harness.getAdapter();
+        assertEquals(0, (int) adapter.getItem(0));
+        for (int i = 1; i < 199; i++) {
+            assertEquals(i + 1, (int) adapter.getItem(i));
+        }
+        assertEquals(1, (int) adapter.getItem(199));
+    }
+
+    @Test
+    public void cancelledDragDoesNotMove() {
+        GestureHarness harness = new GestureHarness(mActivity, 10, ROW_HEIGHT, 0, 0);
+        final int[] metricsCount = new int[1];
+        harness.getListView().setOnDragMetricsListener(new DragListView.OnDragMetricsListener() {
+            @Override
+            public void onDragMetrics(DragMetrics metrics) {
+                metricsCount[0]++;
+            }
+        });
+        harness.down(DRAG_X, ROW_HEIGHT / 2);
+        harness.moveTo(DRAG_X, 4 * ROW_HEIGHT + ROW_HEIGHT / 2, 8);
+        harness.cancel();
+        harness.hold(5);
+
+        DragListView listView = harness.getListView();
+        for (int i = 0; i < harness.getAdapter().getCount(); i++) {
+            assertEquals(i, (int) harness.getAdapter().getItem(i));
+        }
+        // 统计已结束，条目已还原
+        assertEquals(1, metricsCount[0]);
+        for (int i = 0; i < listView.getChildCount(); i++) {
+            View child = listView.getChildAt(i);
+            assertEquals(View.VISIBLE, child.getVisibility());
+            assertEquals(0f, child.getTranslationY(), 0f);
+            assertFalse(child.hasTransientState());
+        }
+    }
+
+    @Test
+    public void dragMetricsIncludeCommitLayout() {
+        GestureHarness harness = new GestureHarness(mActivity, 10, ROW_HEIGHT, 0, 0);
+        final DragMetrics[] result = new DragMetrics[1];
+        final int[] metricsCount = new int[1];
+        harness.getListView().setOnDragMetricsListener(new DragListView.OnDragMetricsListener() {
+            @Override
+            public void onDragMetrics(DragMetrics metrics) {
+                result[0] = metrics;
+                metricsCount[0]++;
+            }
+        });
+        harness.begin();
+        harness.down(DRAG_X, ROW_HEIGHT / 2);
+        // 经过第2、3、4、5条
+        harness.moveTo(DRAG_X, 4 * ROW_HEIGHT + ROW_HEIGHT / 2, 8);
+        harness.up();
+        harness.hold(2);
+        GestureHarness.GestureStats stats = harness.end();
+
+        assertEquals(1, metricsCount[0]);
+        DragMetrics metrics = result[0];
+        assertEquals(DragMetrics.GESTURE_DRAG, metrics.getGesture());
+        assertEquals(10, metrics.getItemCount());
+        assertEquals(4, metrics.getSwapCount());
+        assertEquals(9 * GestureHarness.FRAME_TIME, metrics.getDurationMillis());
+        // 延迟排序时拖拽中不绑定，重新绑定都来自松手后提交的移动
+        assertTrue(metrics.getReboundRows() > 0);
+        assertEquals(stats.binds, metrics.getReboundRows());
+        assertEquals(0, metrics.getAutoScrollDistance());
+        assertEquals(4, (int) harness.getAdapter().getItem(3));
+        assertEquals(0, (int) harness.getAdapter().getItem(4));
+    }
+
+    @Test
+    public void swipeMetricsWaitForDelete() {
+        GestureHarness harness = new GestureHarness(mActivity, 10, ROW_HEIGHT, 0, 0);
+        final DragMetrics[] result = new DragMetrics[1];
+        final int[] metricsCount = new int[1];
+        harness.getListView().setOnDragMetricsListener(new DragListView.OnDragMetricsListener() {
+            @Override
+            public void onDragMetrics(DragMetrics metrics) {
+                result[0] = metrics;
+                metricsCount[0]++;
+            }
+        });
+        harness.begin();
+        float y = 2 * ROW_HEIGHT + ROW_HEIGHT / 2;
+        harness.down(GestureHarness.WIDTH / 2, y);
+        harness.moveTo(GestureHarness.WIDTH / 2 - 240, y, 4);
+        harness.up();
+        // 松手时删除动画刚开始，等删除后的布局完成才回调
+        assertEquals(0, metricsCount[0]);
+        harness.hold(40);
+        GestureHarness.GestureStats stats = harness.end();
+
+        assertEquals(9, harness.getAdapter().getCount());
+        assertEquals(1, metricsCount[0]);
+        DragMetrics metrics = result[0];
+        assertEquals(DragMetrics.GESTURE_SWIPE, metrics.getGesture());
+        assertEquals(10, metrics.getItemCount());
+        assertEquals(0, metrics.getSwapCount());
+        assertEquals(5 * GestureHarness.FRAME_TIME, metrics.getDurationMillis());
+        // 滑动中不绑定，删除后重新绑定下方的条目
+        assertTrue(metrics.getReboundRows() > 0);
+        assertEquals(stats.binds, metrics.getReboundRows());
+    }
+
+    @Test
+    public void coalescedMovesApplyOncePerFrame() {
+        GestureHarness harness = new GestureHarness(mActivity, 10, ROW_HEIGHT, 0, 0);
+        DragListView listView = harness.getListView();
+        listView.setCoalesceTouchEventsEnabled(true);
+        // 合并只在已附加到窗口时生效
+        assertTrue(listView.getWindowToken() != null);
+        final int[] swapCount = new int[1];
+        listView.setOnDragMetricsListener(new DragListView.OnDragMetricsListener() {
+            @Override
+            public void onDragMetrics(DragMetrics metrics) {
+                swapCount[0] = metrics.getSwapCount();
+            }
+        });
+        harness.down(DRAG_X, ROW_HEIGHT + ROW_HEIGHT / 2);
+        // 一帧内经过第3、4、5条
+        for (int row = 2; row <= 4; row++) {
+            harness.moveWithinFrame(DRAG_X, row * ROW_HEIGHT + ROW_HEIGHT / 2);
+        }
+        // 帧到来前不处理
+        assertEquals(0f, listView.getChildAt(2).getTranslationY(), 0f);
+        harness.frame();
+        // 只按最新位置处理一次：目标直接从第2条变为第5条
+        for (int i = 2; i <= 4; i++) {
+            assertEquals(-(ROW_HEIGHT + listView.getDividerHeight()), listView.getChildAt(i).getTranslationY(), 0f);
+        }
+        assertEquals(0f, listView.getChildAt(5).getTranslationY(), 0f);
+        harness.up();
+        // 性能数据在提交数据的布局之后回调
+        harness.hold(2);
+
+        assertEquals(1, swapCount[0]);
+        assertEquals(1, (int) harness.getAdapter().getItem(4));
+    }
+
+    @Test
+    public void coalescedMovePendingAtUpIsApplied() {
+        GestureHarness harness = new GestureHarness(mActivity, 10, ROW_HEIGHT, 0, 0);
+        harness.getListView().setCoalesceTouchEventsEnabled(true);
+        harness.down(DRAG_X, ROW_HEIGHT / 2);
+        harness.moveWithinFrame(DRAG_X, ROW_HEIGHT + ROW_HEIGHT / 2);
+        harness.moveWithinFrame(DRAG_X, 3 * ROW_HEIGHT + ROW_HEIGHT / 2);
+        // 松手时还没到下一帧，先处理最后的移动再放下
+        harness.up();
+        harness.hold(5);
+
+        DragListViewAdapter<Integer> adapter = harness.getAdapter();
+        assertEquals(1, (int) adapter.getItem(0));
+        assertEquals(0, (int) adapter.getItem(3));
+        assertEquals(4, (int) adapter.getItem(4));
+    }
+
+    @Test
+    public void coalescedMovePendingAtCancelIsDropped() {
+        GestureHarness harness = new GestureHarness(mActivity, 10, ROW_HEIGHT, 0, 0);
+        DragListView listView = harness.getListView();
+        listView.setCoalesceTouchEventsEnabled(true);
+        harness.down(DRAG_X, ROW_HEIGHT / 2);
+        harness.moveWithinFrame(DRAG_X, 3 * ROW_HEIGHT + ROW_HEIGHT / 2);
+        harness.cancel();
+        // 待处理的移动不会在之后的帧中执行
+        harness.hold(5);
+
+        for (int i = 0; i < harness.getAdapter().getCount(); i++) {
+            assertEquals(i, (int) harness.getAdapter().getItem(i));
+        }
+        for (int i = 0; i < listView.getChildCount(); i++) {
+            View child = listView.getChildAt(i);
+            assertEquals(View.VISIBLE, child.getVisibility());
+            assertEquals(0f, child.getTranslationY(), 0f);
+        }
+    }
+
+    @Test
+    public void cancelledSwipeDoesNotDelete() {
+        GestureHarness harness = new GestureHarness(mActivity, 10, ROW_HEIGHT, 0, 0);
+        float y = 2 * ROW_HEIGHT + ROW_HEIGHT / 2;
+        harness.down(GestureHarness.WIDTH / 2, y);
+        harness.moveTo(GestureHarness.WIDTH / 2 - 240, y, 4);
+        harness.cancel();
+        harness.hold(40);
+
+        assertEquals(10, harness.getAdapter().getCount());
+        assertEquals(0f, harness.getListView().getChildAt(2).getTranslationX(), 0f);
+    }
+
+    @Test
+    public void recycledRowsLoseDragOffsets() {
+        GestureHarness harness = new GestureHarness(mActivity, 200, ROW_HEIGHT, 0, 0);
+        harness.down(DRAG_X, ROW_HEIGHT + ROW_HEIGHT / 2);
+        harness.moveTo(DRAG_X, GestureHarness.HEIGHT - 5, 10);
+        harness.hold(30);
+        harness.up();
+        // 回到顶部，复用拖拽中被回收、仍带着偏移的条目
+        DragListView listView = harness.getListView();
+        listView.setSelection(0);
+        harness.hold(2);
+
+        for (int i = 0; i < listView.getChildCount(); i++) {
+            assertEquals(0f, listView.getChildAt(i).getTranslationY(), 0f);
+        }
+    }
+
+    @Test
+    public void rapidSwipeDeletes() {
+        GestureHarness harness = new GestureHarness(mActivity, 50, ROW_HEIGHT, 0, 0);
+        harness.begin();
+        // 从下往上删除，前一条收起时不会影响后一条的位置
+        for (int row = 4; row >= 0; row--) {
+            float y = row * ROW_HEIGHT + ROW_HEIGHT / 2;
+            harness.down(GestureHarness.WIDTH / 2, y);
+            harness.moveTo(GestureHarness.WIDTH / 2 - 240, y, 4);
+            harness.up();
+        }
+        // 最后一条刚开始滑出，还没有删除
+        assertTrue(harness.getAdapter().getCount() > 45);
+        // 等待滑出和收起的动画结束
+        harness.hold(40);
+        GestureHarness.GestureStats stats = harness.end();
+        assertAllocationBounded(stats);
+
+        assertEquals(45, harness.getAdapter().getCount());
+        assertEquals(5, (int) harness.getAdapter().getItem(0));
+        // 每条删除刷新一次
+        assertEquals(5, stats.notifies);
+    }
+
+    @Test
+    public void swipeDeleteFollowsAnimatorDurations() {
+        GestureHarness harness = new GestureHarness(mActivity, 10, ROW_HEIGHT, 0, 0);
+        DragListView listView = harness.getListView();
+        float y = 2 * ROW_HEIGHT + ROW_HEIGHT / 2;
+        harness.down(GestureHarness.WIDTH / 2, y);
+        harness.moveTo(GestureHarness.WIDTH / 2 - 240, y, 4);
+        harness.up();
+
+        // 滑过一半宽度，剩余的滑出动画为125ms，这时刚开始
+        View row = listView.getChildAt(2);
+        assertTrue(row.getTranslationX() <= -240);
+        assertTrue(row.getTranslationX() > -GestureHarness.WIDTH);
+        // 约200ms后已滑出，正在收起高度（150ms）
+        harness.hold(13);
+        row = listView.getChildAt(2);
+        assertEquals(10, harness.getAdapter().getCount());
+        assertTrue(row.getHeight() > 0);
+        assertTrue(row.getHeight() < ROW_HEIGHT);
+        // 收起后才删除
+        harness.hold(15);
+        assertEquals(9, harness.getAdapter().getCount());
+    }
+
+    @Test
+    public void swipeDeleteRemovesRowAfterCollapse() {
+        GestureHarness harness = new GestureHarness(mActivity, 10, ROW_HEIGHT, 0, 0);
+        float y = 2 * ROW_HEIGHT + ROW_HEIGHT / 2;
+        harness.down(GestureHarness.WIDTH / 2, y);
+        harness.moveTo(GestureHarness.WIDTH / 2 - 240, y, 4);
+        harness.up();
+        // 滑出和收起两段动画都结束后才删除数据
+        harness.hold(40);
+
+        DragListView listView = harness.getListView();
+        assertEquals(9, harness.getAdapter().getCount());
+        assertEquals(3, (int) harness.getAdapter().getItem(2));
+        // 接管的条目已还原：高度、透明度和暂态
+        for (int i = 0; i < listView.getChildCount(); i++) {
+            View child = listView.getChildAt(i);
+            assertEquals(ROW_HEIGHT, child.getHeight());
+            assertEquals(0f, child.getTranslationX(), 0f);
+            assertFalse(child.hasTransientState());
+        }
+    }
+
+    @Test
+    public void swapDuringSwipeDeleteKeepsDeletingRow() {
+        GestureHarness harness = new GestureHarness(mActivity, 10, ROW_HEIGHT, 0, 0);
+        float y = 4 * ROW_HEIGHT + ROW_HEIGHT / 2;
+        harness.down(GestureHarness.WIDTH / 2, y);
+        harness.moveTo(GestureHarness.WIDTH / 2 - 240, y, 4);
+        harness.up();
+        // 滑出动画中交换，正在删除的数据移到了第1条
+        harness.getAdapter().swapData(0, 4);
+        harness.hold(40);
+
+        assertEquals(9, harness.getAdapter().getCount());
+        assertEquals(1, (int) harness.getAdapter().getItem(0));
+        assertEquals(0, (int) harness.getAdapter().getItem(3));
+    }
+
+    @Test
+    public void groupMoveDuringSwipeDeleteKeepsDeletingRow() {
+        GestureHarness harness = new GestureHarness(mActivity, 10, ROW_HEIGHT, 0, 0);
+        float y = 4 * ROW_HEIGHT + ROW_HEIGHT / 2;
+        harness.down(GestureHarness.WIDTH / 2, y);
+        harness.moveTo(GestureHarness.WIDTH / 2 - 240, y, 4);
+        harness.up();
+        // 滑出动画中把前两条移到后面：[2, 3, 4, 0, 1, ...]，正在删除的数据移到了第3条
+        harness.getAdapter().moveDatas(new int[]{0, 1}, 3);
+        harness.hold(40);
+
+        assertEquals(9, harness.getAdapter().getCount());
+        assertEquals(3, (int) harness.getAdapter().getItem(1));
+        assertEquals(0, (int) harness.getAdapter().getItem(2));
+    }
+
+    @Test
+    public void checkedItemsFollowDataChanges() {
+        GestureHarness harness = new GestureHarness(mActivity, 30, ROW_HEIGHT, 1, 0);
+        DragListView listView = harness.getListView();
+        DragListViewAdapter<Integer> adapter = harness.getAdapter();
+        listView.setMultiSelectEnabled(true);
+        listView.setItemChecked(1 + 2, true);
+        listView.setItemChecked(1 + 25, true);
+
+        // 移动较远，ListView自身按ID也找不回
+        adapter.moveData(25, 0);
+        assertArrayEquals(new int[]{0, 3}, listView.getSelectedDataPositions());
+        adapter.deleteData(1);
+        assertArrayEquals(new int[]{0, 2}, listView.getSelectedDataPositions());
+        adapter.addData(0, 100);
+        assertArrayEquals(new int[]{1, 3}, listView.getSelectedDataPositions());
+        adapter.swapData(1, 10);
+        assertArrayEquals(new int[]{3, 10}, listView.getSelectedDataPositions());
+        adapter.moveDatas(new int[]{3, 10}, 20);
+        assertArrayEquals(new int[]{20, 21}, listView.getSelectedDataPositions());
+        assertEquals(2, (int) adapter.getItem(20));
+        assertEquals(25, (int) adapter.getItem(21));
+    }
+
+    @Test
+    public void dragAcrossHeadersAndFooters() {
+        GestureHarness harness = new GestureHarness(mActivity, 5, ROW_HEIGHT, 2, 1);
+        int firstRowY = 2 * ROW_HEIGHT + ROW_HEIGHT / 2;
+        harness.begin();
+        harness.down(DRAG_X, firstRowY);
+        // 拖进Header，再拖过所有数据进入Footer
+        harness.moveTo(DRAG_X, 5, 5);
+        harness.moveTo(DRAG_X, 8 * ROW_HEIGHT - 5, 10);
+        harness.up();
+        GestureHarness.GestureStats stats = harness.end();
+        assertAllocationBounded(stats);
+
+        // Header和Footer不能作为目标，数据停在最后一条
+        assertEquals(0, (int) harness.getAdapter().getItem(4));
+        assertEquals(1, (int) harness.getAdapter().getItem(0));
+        assertEquals(0, stats.notifies);
+    }
+
+    private static void assertAllocationBounded(GestureHarness.GestureStats stats) {
+        if (stats.allocatedBytes < 0) {
+            // JVM不支持按线程统计分配
+            return;
+        }
+        assertTrue(stats.toString(), stats.allocatedBytes <= MAX_ALLOCATED_BYTES_PER_FRAME * Math.max(1, stats.frames));
+    }
+}
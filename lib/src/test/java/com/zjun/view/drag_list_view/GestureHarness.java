@@ -0,0 +1,257 @@
+package com.zjun.view.drag_list_view;
+
+import android.app.Activity;
+import android.content.Context;
+import android.database.DataSetObserver;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+
+import org.robolectric.Robolectric;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 在JVM上模拟手势的测试工具：向DragListView输入合成的MotionEvent，按帧推进主线程，
+ * 并统计每个手势中getItemView()的调用次数、notifyDataSetChanged()的次数、布局次数、帧数及测试线程分配的字节数。
+ * JVM上的分配包括Robolectric自身的开销，只能作为上限检查；真机上的精确统计见DragListViewAllocationTest
+ */
+class GestureHarness {
+    static final int WIDTH = 480;
+    static final int HEIGHT = 800;
+    static final int FRAME_TIME = 16;
+
+    private final CountingListView mListView;
+    private final CountingAdapter mAdapter;
+
+    private long mDownTime;
+    private float mLastX;
+    private float mLastY;
+
+    /**
+     * 当前统计的起点
+     */
+    private int mBindsStart;
+    private int mNotifiesStart;
+    private int mLayoutsStart;
+    private int mFramesStart;
+    private long mBytesStart;
+
+    private int mFrames;
+
+    GestureHarness(Activity activity, int rowCount, int rowHeight, int headerCount, int footerCount) {
+        mListView = new CountingListView(activity);
+        for (int i = 0; i < headerCount; i++) {
+            mListView.addHeaderView(newRow(activity, rowHeight));
+        }
+        for (int i = 0; i < footerCount; i++) {
+            mListView.addFooterView(newRow(activity, rowHeight));
+        }
+        List<Integer> datas = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            datas.add(i);
+        }
+        mAdapter = new CountingAdapter(activity, datas, rowHeight);
+        mListView.setAdapter(mAdapter);
+        // 暂停主线程：回调和ValueAnimator的帧只在frame()中按时间推进，动画时长与真机一致
+        Robolectric.getForegroundThreadScheduler().pause();
+        activity.setContentView(mListView, new ViewGroup.LayoutParams(WIDTH, HEIGHT));
+        layout();
+    }
+
+    DragListView getListView() {
+        return mListView;
+    }
+
+    DragListViewAdapter<Integer> getAdapter() {
+        return mAdapter;
+    }
+
+    /**
+     * 开始统计
+     */
+    void begin() {
+        mBindsStart = mAdapter.mBinds;
+        mNotifiesStart = mAdapter.mNotifies;
+        mLayoutsStart = mListView.mLayouts;
+        mFramesStart = mFrames;
+        mBytesStart = getAllocatedBytes();
+    }
+
+    /**
+     * 结束统计，返回begin()以来的结果
+     */
+    GestureStats end() {
+        GestureStats stats = new GestureStats();
+        long bytes = getAllocatedBytes();
+        stats.allocatedBytes = bytes < 0 || mBytesStart < 0 ? -1 : bytes - mBytesStart;
+        stats.frames = mFrames - mFramesStart;
+        stats.binds = mAdapter.mBinds - mBindsStart;
+        stats.notifies = mAdapter.mNotifies - mNotifiesStart;
+        stats.layouts = mListView.mLayouts - mLayoutsStart;
+        return stats;
+    }
+
+    void down(float x, float y) {
+        mDownTime = SystemClock.uptimeMillis();
+        dispatch(MotionEvent.ACTION_DOWN, x, y);
+        frame();
+    }
+
+    /**
+     * 分steps帧匀速移动到(x, y)，每帧一个ACTION_MOVE
+     */
+    void moveTo(float x, float y, int steps) {
+        float startX = mLastX;
+        float startY = mLastY;
+        for (int i = 1; i <= steps; i++) {
+            dispatch(MotionEvent.ACTION_MOVE, startX + (x - startX) * i / steps, startY + (y - startY) * i / steps);
+            frame();
+        }
+    }
+
+    /**
+     * 在当前帧内移动到(x, y)，不推进主线程。用于一帧内收到多个ACTION_MOVE的情况
+     */
+    void moveWithinFrame(float x, float y) {
+        dispatch(MotionEvent.ACTION_MOVE, x, y);
+    }
+
+    /**
+     * 手指不动，停留若干帧
+     */
+    void hold(int frames) {
+        for (int i = 0; i < frames; i++) {
+            frame();
+        }
+    }
+
+    void up() {
+        dispatch(MotionEvent.ACTION_UP, mLastX, mLastY);
+        frame();
+    }
+
+    /**
+     * 手势被取消，如被父View拦截
+     */
+    void cancel() {
+        dispatch(MotionEvent.ACTION_CANCEL, mLastX, mLastY);
+        frame();
+    }
+
+    /**
+     * 推进一帧：执行到期的回调和动画，需要时重新布局
+     */
+    void frame() {
+        mFrames++;
+        Robolectric.getForegroundThreadScheduler().advanceBy(FRAME_TIME);
+        if (mListView.isLayoutRequested()) {
+            layout();
+        }
+    }
+
+    private void layout() {
+        mListView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mListView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private void dispatch(int action, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(mDownTime, SystemClock.uptimeMillis(), action, x, y, 0);
+        mListView.dispatchTouchEvent(event);
+        event.recycle();
+        mLastX = x;
+        mLastY = y;
+    }
+
+    /**
+     * 测试线程累计分配的字节数，JVM不支持时返回-1
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static View newRow(Context context, int height) {
+        View view = new View(context);
+        view.setLayoutParams(new AbsListView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, height));
+        return view;
+    }
+
+    /**
+     * 一个手势的统计结果
+     */
+    static class GestureStats {
+        int binds;
+        int notifies;
+        int layouts;
+        int frames;
+        /**
+         * 不支持统计时为-1
+         */
+        long allocatedBytes;
+
+        @Override
+        public String toString() {
+            return "binds=" + binds + ", notifies=" + notifies + ", layouts=" + layouts
+                    + ", frames=" + frames + ", allocatedBytes=" + allocatedBytes;
+        }
+    }
+
+    /**
+     * 统计布局次数的DragListView
+     */
+    private static class CountingListView extends DragListView {
+        int mLayouts;
+
+        CountingListView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void layoutChildren() {
+            mLayouts++;
+            super.layoutChildren();
+        }
+    }
+
+    /**
+     * 统计绑定和刷新次数的适配器。刷新包括notifyDataSetChanged()及只有结构变化的刷新
+     */
+    private static class CountingAdapter extends DragListViewAdapter<Integer> {
+        private final int mRowHeight;
+        int mBinds;
+        int mNotifies;
+
+        CountingAdapter(Context context, List<Integer> datas, int rowHeight) {
+            super(context, datas);
+            mRowHeight = rowHeight;
+            registerDataSetObserver(new DataSetObserver() {
+                @Override
+                public void onChanged() {
+                    mNotifies++;
+                }
+            });
+        }
+
+        @Override
+        public View getItemView(int position, View convertView, ViewGroup parent) {
+            mBinds++;
+            if (convertView == null) {
+                convertView = newRow(mContext, mRowHeight);
+            }
+            return convertView;
+        }
+    }
+}
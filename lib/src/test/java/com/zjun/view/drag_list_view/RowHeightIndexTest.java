@@ -0,0 +1,152 @@
+package com.zjun.view.drag_list_view;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 与逐项求和对照，随机执行测量、插入、删除、移动、交换和重排。
+ * 变化靠近末尾时走逐个更新的分支，否则走整体重建的分支，两者都要覆盖
+ */
+public class RowHeightIndexTest {
+
+    private static final int UNKNOWN = -1;
+
+    @Test
+    public void randomOperationsMatchPrefixSums() {
+        for (long seed = 0; seed < 20; seed++) {
+            runRandomOperations(seed, 50 + (int) seed * 20);
+        }
+    }
+
+    @Test
+    public void unmeasuredRowsUseFirstMeasuredHeight() {
+        RowHeightIndex index = new RowHeightIndex();
+        index.reset(10);
+        // 还没有测量过，预估高度为0
+        assertEquals(0, index.getTotalHeight());
+
+        index.setHeight(3, 40);
+        assertEquals(400, index.getTotalHeight());
+        index.setHeight(4, 10);
+        assertEquals(370, index.getTotalHeight());
+        assertEquals(160, index.getOffset(4));
+        index.insert(10);
+        assertEquals(410, index.getTotalHeight());
+        index.remove(4);
+        assertEquals(400, index.getTotalHeight());
+        assertEquals(10, index.size());
+    }
+
+    @Test
+    public void appendsAndRemovalsAtEnd() {
+        // 只在末尾变化，总是逐个更新
+        RowHeightIndex index = new RowHeightIndex();
+        List<Integer> expected = new ArrayList<>();
+        index.reset(0);
+        Random random = new Random(30);
+        for (int i = 0; i < 2000; i++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                index.insert(expected.size());
+                expected.add(UNKNOWN);
+                int height = 10 + random.nextInt(50);
+                index.setHeight(expected.size() - 1, height);
+                expected.set(expected.size() - 1, height);
+            } else {
+                index.remove(expected.size() - 1);
+                expected.remove(expected.size() - 1);
+            }
+            // 每个位置插入后立即测量，没有未测量的位置
+            assertOffsets(index, expected, 0);
+        }
+    }
+
+    private static void runRandomOperations(long seed, int count) {
+        Random random = new Random(seed);
+        RowHeightIndex index = new RowHeightIndex();
+        index.reset(count);
+        List<Integer> expected = new ArrayList<>(Collections.nCopies(count, UNKNOWN));
+        int estimated = 0;
+        for (int i = 0; i < 1000; i++) {
+            int size = expected.size();
+            // 一半的插入、删除和移动靠近末尾
+            boolean nearEnd = random.nextBoolean();
+            switch (size == 0 ? 1 : random.nextInt(6)) {
+                case 0: {
+                    int position = random.nextInt(size);
+                    int height = 10 + random.nextInt(50);
+                    index.setHeight(position, height);
+                    expected.set(position, height);
+                    if (estimated == 0) {
+                        estimated = height;
+                    }
+                    break;
+                }
+                case 1: {
+                    int position = nearEnd ? size - random.nextInt(Math.min(size, 3) + 1) : random.nextInt(size + 1);
+                    index.insert(position);
+                    expected.add(position, UNKNOWN);
+                    break;
+                }
+                case 2: {
+                    int position = nearEnd ? size - 1 - random.nextInt(Math.min(size, 3)) : random.nextInt(size);
+                    index.remove(position);
+                    expected.remove(position);
+                    break;
+                }
+                case 3: {
+                    int from = random.nextInt(size);
+                    int to = nearEnd ? Math.min(size - 1, from + random.nextInt(3)) : random.nextInt(size);
+                    index.move(from, to);
+                    expected.add(to, expected.remove(from));
+                    break;
+                }
+                case 4: {
+                    int a = random.nextInt(size);
+                    int b = random.nextInt(size);
+                    index.swap(a, b);
+                    Collections.swap(expected, a, b);
+                    break;
+                }
+                default: {
+                    // 重排[start, start + length)，order中的位置比实际位置少shift（如去掉Header数）
+                    int start = random.nextInt(size);
+                    int length = 1 + random.nextInt(Math.min(size - start, 10));
+                    int shift = random.nextInt(3);
+                    List<Integer> positions = new ArrayList<>();
+                    for (int p = start; p < start + length; p++) {
+                        positions.add(p);
+                    }
+                    Collections.shuffle(positions, random);
+                    int[] order = new int[length];
+                    for (int k = 0; k < length; k++) {
+                        order[k] = positions.get(k) - shift;
+                    }
+                    index.reorder(start, order, shift);
+                    List<Integer> old = new ArrayList<>(expected.subList(start, start + length));
+                    for (int k = 0; k < length; k++) {
+                        expected.set(start + k, old.get(positions.get(k) - start));
+                    }
+                    break;
+                }
+            }
+            assertOffsets(index, expected, estimated);
+        }
+    }
+
+    private static void assertOffsets(RowHeightIndex index, List<Integer> expected, int estimated) {
+        assertEquals(expected.size(), index.size());
+        int sum = 0;
+        for (int position = 0; position < expected.size(); position++) {
+            assertEquals(sum, index.getOffset(position));
+            int height = expected.get(position);
+            sum += height == UNKNOWN ? estimated : height;
+        }
+        assertEquals(sum, index.getTotalHeight());
+    }
+}
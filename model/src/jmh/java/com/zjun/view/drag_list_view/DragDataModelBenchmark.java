@@ -0,0 +1,199 @@
+package com.zjun.view.drag_list_view;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据模型的基准测试：移动、左滑连续删除、长距离拖拽、多选移动和替换数据列表。
+ * 每次操作后数据个数保持不变，结果可在不同规模间比较
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DragDataModelBenchmark {
+
+    /**
+     * 连续左滑删除的条数
+     */
+    private static final int DELETE_BURST = 20;
+
+    /**
+     * 长距离拖拽跨过的条目数
+     */
+    private static final int DRAG_DISTANCE = 200;
+
+    /**
+     * 多选移动的条数
+     */
+    private static final int SELECTION_SIZE = 30;
+
+    @Param({"100", "10000", "1000000"})
+    public int size;
+
+    /**
+     * 数据列表的实现：array-ArrayList，indexed-IndexedList
+     */
+    @Param({"array", "indexed"})
+    public String list;
+
+    private DragDataModel<Integer> mModel;
+    private List<Integer> mSource;
+    private List<Integer> mReplacement;
+    private Random mRandom;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mSource = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            mSource.add(i);
+        }
+        mModel = new DragDataModel<>(newList(mSource));
+        mReplacement = newList(mSource);
+        mRandom = new Random(615);
+    }
+
+    private List<Integer> newList(List<Integer> source) {
+        return "indexed".equals(list) ? new IndexedList<>(source) : new ArrayList<>(source);
+    }
+
+    /**
+     * 一次松手提交的移动
+     */
+    @Benchmark
+    public void move() {
+        mModel.move(mRandom.nextInt(size), mRandom.nextInt(size));
+    }
+
+    /**
+     * 逐条删除，每条删除立即从列表中移除
+     */
+    @Benchmark
+    public void swipeDeleteBurst() {
+        for (int i = 0; i < DELETE_BURST; i++) {
+            mModel.delete(mRandom.nextInt(mModel.size()));
+        }
+        refill();
+    }
+
+    /**
+     * 批量删除：先标记，最后一次性移除
+     */
+    @Benchmark
+    public void swipeDeleteBurstBatch() {
+        for (int i = 0; i < DELETE_BURST; i++) {
+            mModel.markDeleted(mRandom.nextInt(mModel.size()));
+        }
+        mModel.compact();
+        refill();
+    }
+
+    /**
+     * 把删除的条数补回末尾，使每次测量的规模相同
+     */
+    private void refill() {
+        for (int i = 0; i < DELETE_BURST; i++) {
+            mModel.add(mModel.size(), i);
+        }
+    }
+
+    /**
+     * 逐行交换的长距离拖拽，即每经过一个条目交换一次
+     */
+    @Benchmark
+    public void longDragSwaps() {
+        int distance = Math.min(DRAG_DISTANCE, size - 1);
+        int from = mRandom.nextInt(size - distance);
+        for (int i = from; i < from + distance; i++) {
+            mModel.swap(i, i + 1);
+        }
+    }
+
+    /**
+     * 延迟排序的长距离拖拽，松手时只移动一次
+     */
+    @Benchmark
+    public void longDragMove() {
+        int distance = Math.min(DRAG_DISTANCE, size - 1);
+        int from = mRandom.nextInt(size - distance);
+        mModel.move(from, from + distance);
+    }
+
+    /**
+     * 多选的一组数据逐条移动，每条一次move()
+     */
+    @Benchmark
+    public void selectionMoves() {
+        int[] positions = randomSelection();
+        int to = mRandom.nextInt(size - positions.length + 1);
+        // 依次移到末尾，再依次移到目标位置，与一次稳定划分的结果相同
+        for (int i = 0; i < positions.length; i++) {
+            mModel.move(positions[i] - i, size - 1);
+        }
+        for (int i = 0; i < positions.length; i++) {
+            mModel.move(size - positions.length + i, to + i);
+        }
+    }
+
+    /**
+     * 多选的一组数据一次稳定划分移动
+     */
+    @Benchmark
+    public void selectionMoveItems() {
+        int[] positions = randomSelection();
+        mModel.moveItems(positions, mRandom.nextInt(size - positions.length + 1));
+    }
+
+    /**
+     * 随机选中的升序位置，集中在一段范围内，类似一屏内的多选
+     */
+    private int[] randomSelection() {
+        int count = Math.min(SELECTION_SIZE, size / 2);
+        int span = Math.min(size, count * 4);
+        int start = mRandom.nextInt(size - span + 1);
+        int[] positions = new int[count];
+        int next = start;
+        for (int i = 0; i < count; i++) {
+            positions[i] = next;
+            next += 1 + mRandom.nextInt(3);
+        }
+        return positions;
+    }
+
+    /**
+     * 替换数据列表，两个列表交替使用
+     */
+    @Benchmark
+    public List<Integer> setDataList() {
+        List<Integer> previous = mModel.getDataList();
+        mModel.setDataList(mReplacement);
+        mReplacement = previous;
+        return previous;
+    }
+
+    /**
+     * 以排列方式替换数据列表，需要建立新的排列
+     */
+    @Benchmark
+    public int[] setPermutedDataList() {
+        mModel.setPermutedDataList(mSource);
+        return mModel.getPermutation();
+    }
+}
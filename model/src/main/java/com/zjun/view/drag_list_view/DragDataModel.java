@@ -0,0 +1,780 @@
+package com.zjun.view.drag_list_view;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+
+/**
+ * 拖拽列表的数据模型：移动、交换、删除、插入、标记删除、撤销/重做及排序键，不依赖Android，可直接在JVM上测试和测量。
+ * 位置均为显示的位置，即跳过了标记删除的数据
+ */
+public class DragDataModel<T> {
+
+    /**
+     * 排序键的最大长度，超过时重新分配附近数据的排序键
+     */
+    private static final int MAX_ORDER_KEY_LENGTH = 16;
+
+    /**
+     * 重新分配排序键时，初始的单侧范围
+     */
+    private static final int ORDER_KEY_REBALANCE_SPAN = 8;
+
+    private List<T> mDatas;
+
+    /**
+     * 数据变化的回调
+     */
+    private Callback mCallback;
+
+    /**
+     * 已标记删除、尚未真正移除的数据在mDatas中的索引，升序排列
+     * @see #markDeleted(int)
+     */
+    private int[] mDeletedIndices = new int[8];
+    private int mDeletedCount;
+
+    /**
+     * 操作日志，用于撤销/重做
+     * @see #setOperationJournal(OperationJournal)
+     */
+    private OperationJournal mJournal;
+
+    /**
+     * 是否正在撤销/重做，此时的操作不再记录
+     */
+    private boolean mReplaying;
+
+    /**
+     * 排序键的读写器，及排序键变化的监听器
+     * @see #setOrderKeyAccessor(OrderKeyAccessor, OnOrderKeysChangedListener)
+     */
+    private OrderKeyAccessor<T> mOrderKeyAccessor;
+    private OnOrderKeysChangedListener<T> mOnOrderKeysChangedListener;
+
+    /**
+     * 持久化队列
+     * @see #setWriteBehindQueue(WriteBehindQueue)
+     */
+    private WriteBehindQueue<T> mWriteBehindQueue;
+
+    public DragDataModel(List<T> dataList) {
+        mDatas = dataList;
+    }
+
+    public void setCallback(Callback callback) {
+        mCallback = callback;
+    }
+
+    /**
+     * 显示的数据个数，不含标记删除的数据
+     */
+    public int size() {
+        return mDatas == null ? 0 : mDatas.size() - mDeletedCount;
+    }
+
+    public T get(int position) {
+        return mDatas.get(toDataIndex(position));
+    }
+
+    public void swap(int from, int to) {
+        compact();
+        if (mWriteBehindQueue != null) {
+            checkLoaded(from);
+            checkLoaded(to);
+        }
+        if (mDatas instanceof ReorderableList) {
+            ((ReorderableList) mDatas).swap(from, to);
+        } else {
+            Collections.swap(mDatas, from, to);
+        }
+        if (isRecording()) {
+            mJournal.recordSwap(from, to);
+        }
+        if (mWriteBehindQueue != null && from != to) {
+            // 记录为依次执行的两次移动：先把前面的数据移到后面，原来后面的数据随之前移一位，再移到前面
+            int min = Math.min(from, to);
+            int max = Math.max(from, to);
+            mWriteBehindQueue.recordMove(get(max), min, max);
+            mWriteBehindQueue.recordMove(get(min), max - 1, min);
+        }
+        swapOrderKeys(from, to);
+        if (mCallback != null) {
+            mCallback.onItemsSwapped(from, to);
+        }
+    }
+
+    /**
+     * 把from位置的数据移动到to位置，中间的数据依次顺移
+     */
+    public void move(int from, int to) {
+        compact();
+        if (mWriteBehindQueue != null) {
+            checkLoaded(from);
+        }
+        if (mDatas instanceof ReorderableList) {
+            ((ReorderableList) mDatas).move(from, to);
+        } else {
+            mDatas.add(to, mDatas.remove(from));
+        }
+        if (isRecording()) {
+            mJournal.recordMove(from, to);
+        }
+        if (mWriteBehindQueue != null) {
+            mWriteBehindQueue.recordMove(get(to), from, to);
+        }
+        updateOrderKey(to);
+        if (mCallback != null) {
+            mCallback.onItemMoved(from, to);
+        }
+    }
+
+    /**
+     * 把positions位置上的多条数据作为一组移动，移动后这组数据从to位置开始连续排列。
+     * 组内数据及其余数据都保持原有的先后顺序，通过一次O(n)的稳定划分完成，只回调一次{@link Callback#onItemRangeReordered(int, int[])}。
+     * 操作日志和持久化队列中记录为等价的逐条移动，撤销时逐条撤销
+     *
+     * @param positions 升序排列、不重复的位置
+     * @param to 0 ~ size() - positions.length
+     */
+    @SuppressWarnings("unchecked")
+    public void moveItems(int[] positions, int to) {
+        compact();
+        int count = positions.length;
+        int size = mDatas.size();
+        if (count == 0) {
+            return;
+        }
+        if (to < 0 || to > size - count) {
+            throw new IndexOutOfBoundsException("Invalid index " + to + ", size is " + size + ", count is " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            if (positions[i] < 0 || positions[i] >= size || (i > 0 && positions[i] <= positions[i - 1])) {
+                throw new IllegalArgumentException("positions must be ascending and in [0, " + size + "): "
+                        + Arrays.toString(positions));
+            }
+            if (mWriteBehindQueue != null) {
+                checkLoaded(positions[i]);
+            }
+        }
+        // 只有[start, end]范围内的数据位置会变化
+        int start = Math.min(positions[0], to);
+        int end = Math.max(positions[count - 1], to + count - 1);
+        if (isRecording() || mWriteBehindQueue != null) {
+            recordItemMoves(positions, to, start, end);
+        }
+        // 稳定划分：order[i]为移动后start + i位置上的数据原来的位置
+        int[] order = new int[end - start + 1];
+        int blockStart = to - start;
+        int selected = 0;
+        int other = 0;
+        for (int p = start; p <= end; p++) {
+            if (selected < count && positions[selected] == p) {
+                order[blockStart + selected++] = p;
+            } else {
+                order[other < blockStart ? other : other + count] = p;
+                other++;
+            }
+        }
+        if (mDatas instanceof PermutedList) {
+            ((PermutedList<?>) mDatas).reorder(start, order);
+        } else {
+            List<T> range = mDatas.subList(start, end + 1);
+            Object[] old = range.toArray();
+            ListIterator<T> iterator = range.listIterator();
+            for (int i : order) {
+                iterator.next();
+                iterator.set((T) old[i - start]);
+            }
+        }
+        updateOrderKeys(to, to + count - 1);
+        if (mCallback != null) {
+            mCallback.onItemRangeReordered(start, order);
+        }
+    }
+
+    /**
+     * 把一组移动拆成等价的逐条移动，记录到操作日志和持久化队列：
+     * 先从后往前处理向下移动的数据，再从前往后处理向上移动的数据，每次移动都不会打乱已就位的数据
+     */
+    private void recordItemMoves(int[] positions, int to, int start, int end) {
+        int count = positions.length;
+        // 模拟移动过程中[start, end]范围内各位置上的数据（以原来的位置表示）
+        int[] current = new int[end - start + 1];
+        for (int i = 0; i < current.length; i++) {
+            current[i] = start + i;
+        }
+        for (int j = count - 1; j >= 0; j--) {
+            if (positions[j] < to + j) {
+                recordItemMove(current, start, positions[j], to + j);
+            }
+        }
+        for (int j = 0; j < count; j++) {
+            if (positions[j] > to + j) {
+                recordItemMove(current, start, positions[j], to + j);
+            }
+        }
+    }
+
+    private void recordItemMove(int[] current, int start, int original, int to) {
+        int from = start;
+        while (current[from - start] != original) {
+            from++;
+        }
+        if (from < to) {
+            System.arraycopy(current, from - start + 1, current, from - start, to - from);
+        } else {
+            System.arraycopy(current, to - start, current, to - start + 1, from - to);
+        }
+        current[to - start] = original;
+        if (isRecording()) {
+            mJournal.recordMove(from, to);
+        }
+        if (mWriteBehindQueue != null) {
+            mWriteBehindQueue.recordMove(mDatas.get(original), from, to);
+        }
+    }
+
+    public void delete(int index) {
+        compact();
+        if (isRecording() || mWriteBehindQueue != null) {
+            checkLoaded(index);
+        }
+        Object journalItem = isRecording() ? toJournalItem(index) : null;
+        T data = mDatas.remove(index);
+        if (isRecording()) {
+            mJournal.recordDelete(index, journalItem);
+        }
+        if (mWriteBehindQueue != null) {
+            mWriteBehindQueue.recordDelete(data, index);
+        }
+        if (mCallback != null) {
+            mCallback.onItemRemoved(index);
+        }
+    }
+
+    public void add(int location, T data) {
+        compact();
+        mDatas.add(location, data);
+        onInserted(location, data);
+    }
+
+    /**
+     * 撤销删除：排列方式下按源数据位置恢复，否则重新插入
+     */
+    @SuppressWarnings("unchecked")
+    private void reinsert(int location, Object journalItem) {
+        if (journalItem instanceof PermutedItem) {
+            compact();
+            PermutedItem item = (PermutedItem) journalItem;
+            ((PermutedList<?>) mDatas).restore(location, item.sourceIndex);
+            onInserted(location, (T) item.data);
+        } else {
+            add(location, (T) journalItem);
+        }
+    }
+
+    private void onInserted(int location, T data) {
+        if (isRecording()) {
+            mJournal.recordInsert(location, data);
+        }
+        if (mWriteBehindQueue != null) {
+            mWriteBehindQueue.recordInsert(data, location);
+        }
+        updateOrderKey(location);
+        if (mCallback != null) {
+            mCallback.onItemInserted(location);
+        }
+    }
+
+    /**
+     * 替换全部数据，并清空操作日志
+     */
+    public void setDataList(List<T> dataList) {
+        compact();
+        mDatas = dataList;
+        if (mJournal != null) {
+            mJournal.clear();
+        }
+        if (mCallback != null) {
+            mCallback.onDataSetChanged();
+        }
+    }
+
+    /**
+     * 获取数据列表，已移除所有标记删除的数据
+     */
+    public List<T> getDataList() {
+        compact();
+        return mDatas;
+    }
+
+    /**
+     * 标记删除数据：数据立即隐藏，但暂不从列表中移除，之后由compact()一次性移除。
+     * 适合连续删除多条数据
+     *
+     * @param index 当前显示的位置
+     */
+    public void markDeleted(int index) {
+        if (isRecording() || mWriteBehindQueue != null) {
+            checkLoaded(index);
+        }
+        int dataIndex = toDataIndex(index);
+        if (mDeletedCount == mDeletedIndices.length) {
+            mDeletedIndices = Arrays.copyOf(mDeletedIndices, mDeletedCount * 2);
+        }
+        int i = mDeletedCount;
+        while (i > 0 && mDeletedIndices[i - 1] > dataIndex) {
+            mDeletedIndices[i] = mDeletedIndices[i - 1];
+            i--;
+        }
+        mDeletedIndices[i] = dataIndex;
+        mDeletedCount++;
+        if (isRecording()) {
+            mJournal.recordDelete(index, toJournalItem(dataIndex));
+        }
+        if (mWriteBehindQueue != null) {
+            mWriteBehindQueue.recordDelete(mDatas.get(dataIndex), index);
+        }
+        if (mCallback != null) {
+            mCallback.onItemRemoved(index);
+        }
+    }
+
+    /**
+     * 一次性移除所有标记删除的数据。显示内容不变，无需通知
+     */
+    public void compact() {
+        if (mDeletedCount == 0) {
+            return;
+        }
+        if (mDatas instanceof RandomAccess) {
+            // 一次遍历，把保留的数据前移，再截掉尾部
+            int size = mDatas.size();
+            int write = mDeletedIndices[0];
+            int next = 0;
+            for (int read = write; read < size; read++) {
+                if (next < mDeletedCount && mDeletedIndices[next] == read) {
+                    next++;
+                } else {
+                    mDatas.set(write++, mDatas.get(read));
+                }
+            }
+            mDatas.subList(write, size).clear();
+        } else {
+            for (int i = mDeletedCount - 1; i >= 0; i--) {
+                mDatas.remove(mDeletedIndices[i]);
+            }
+        }
+        mDeletedCount = 0;
+    }
+
+    /**
+     * 把显示的位置转换为数据列表中的索引，跳过标记删除的数据
+     */
+    public int toDataIndex(int position) {
+        int dataIndex = position;
+        for (int i = 0; i < mDeletedCount && mDeletedIndices[i] <= dataIndex; i++) {
+            dataIndex++;
+        }
+        return dataIndex;
+    }
+
+    /**
+     * 设置操作日志。设置后，移动、交换、删除和插入都会被记录，可撤销/重做
+     */
+    public void setOperationJournal(OperationJournal journal) {
+        mJournal = journal;
+    }
+
+    public OperationJournal getOperationJournal() {
+        return mJournal;
+    }
+
+    /**
+     * 撤销最近一次操作
+     *
+     * @return 是否有可撤销的操作
+     */
+    public boolean undo() {
+        if (mJournal == null) {
+            return false;
+        }
+        int entry = mJournal.undo();
+        if (entry < 0) {
+            return false;
+        }
+        mReplaying = true;
+        try {
+            int arg1 = mJournal.getArg1(entry);
+            int arg2 = mJournal.getArg2(entry);
+            switch (mJournal.getType(entry)) {
+                case OperationJournal.TYPE_MOVE:
+                    move(arg2, arg1);
+                    break;
+                case OperationJournal.TYPE_SWAP:
+                    swap(arg1, arg2);
+                    break;
+                case OperationJournal.TYPE_DELETE:
+                    reinsert(arg1, mJournal.getItem(entry));
+                    break;
+                case OperationJournal.TYPE_INSERT:
+                    delete(arg1);
+                    break;
+                default:
+                    break;
+            }
+        } finally {
+            mReplaying = false;
+        }
+        return true;
+    }
+
+    /**
+     * 重做最近一次撤销的操作
+     *
+     * @return 是否有可重做的操作
+     */
+    public boolean redo() {
+        if (mJournal == null) {
+            return false;
+        }
+        int entry = mJournal.redo();
+        if (entry < 0) {
+            return false;
+        }
+        mReplaying = true;
+        try {
+            int arg1 = mJournal.getArg1(entry);
+            int arg2 = mJournal.getArg2(entry);
+            switch (mJournal.getType(entry)) {
+                case OperationJournal.TYPE_MOVE:
+                    move(arg1, arg2);
+                    break;
+                case OperationJournal.TYPE_SWAP:
+                    swap(arg1, arg2);
+                    break;
+                case OperationJournal.TYPE_DELETE:
+                    delete(arg1);
+                    break;
+                case OperationJournal.TYPE_INSERT:
+                    reinsert(arg1, mJournal.getItem(entry));
+                    break;
+                default:
+                    break;
+            }
+        } finally {
+            mReplaying = false;
+        }
+        return true;
+    }
+
+    /**
+     * 设置持久化队列。设置后，移动、交换、删除和插入（包括撤销/重做）都会交给队列，在后台合并写入
+     */
+    public void setWriteBehindQueue(WriteBehindQueue<T> queue) {
+        mWriteBehindQueue = queue;
+    }
+
+    public WriteBehindQueue<T> getWriteBehindQueue() {
+        return mWriteBehindQueue;
+    }
+
+    private boolean isRecording() {
+        return mJournal != null && !mReplaying;
+    }
+
+    /**
+     * 分页方式下，数据是否已加载。其他方式下总是true
+     *
+     * @param position 当前显示的位置
+     */
+    public boolean isLoaded(int position) {
+        if (!(mDatas instanceof PermutedList)) {
+            return true;
+        }
+        PermutedList<?> permutedList = (PermutedList<?>) mDatas;
+        return !(permutedList.getSource() instanceof PagedList)
+                || ((PagedList<?>) permutedList.getSource()).isLoaded(permutedList.getSourceIndex(toDataIndex(position)));
+    }
+
+    /**
+     * 排列方式下，显示位置对应的源数据位置
+     *
+     * @return 非排列方式时返回-1
+     */
+    public int getSourceIndex(int position) {
+        if (!(mDatas instanceof PermutedList)) {
+            return -1;
+        }
+        return ((PermutedList<?>) mDatas).getSourceIndex(toDataIndex(position));
+    }
+
+    /**
+     * 排列方式下，源数据位置当前的显示位置，O(1)加上标记删除的数量
+     *
+     * @return 非排列方式，或数据已删除时返回-1
+     */
+    public int getPosition(int sourceIndex) {
+        if (!(mDatas instanceof PermutedList)) {
+            return -1;
+        }
+        int dataIndex = ((PermutedList<?>) mDatas).getLocation(sourceIndex);
+        if (dataIndex < 0) {
+            return -1;
+        }
+        // 跳过其前面标记删除的数据
+        int position = dataIndex;
+        for (int i = 0; i < mDeletedCount && mDeletedIndices[i] <= dataIndex; i++) {
+            if (mDeletedIndices[i] == dataIndex) {
+                return -1;
+            }
+            position--;
+        }
+        return position;
+    }
+
+    /**
+     * 持久化队列和操作日志需要数据本身，不能作用于未加载的数据
+     */
+    private void checkLoaded(int position) {
+        if (!isLoaded(position)) {
+            throw new IllegalStateException("Item at " + position + " is not loaded yet");
+        }
+    }
+
+    /**
+     * 删除时记录到操作日志中的数据。排列方式下不能插入，需同时记录源数据位置，撤销时据此恢复
+     *
+     * @param dataIndex 数据列表中的索引
+     */
+    private Object toJournalItem(int dataIndex) {
+        T data = mDatas.get(dataIndex);
+        if (mDatas instanceof PermutedList) {
+            return new PermutedItem(((PermutedList<?>) mDatas).getSourceIndex(dataIndex), data);
+        }
+        return data;
+    }
+
+    /**
+     * 设置排序键的读写器。设置后，每次移动或插入只为移动的数据生成一个介于前后数据之间的排序键，
+     * 持久化时只需写入变化的数据；键过长时才重新分配附近数据的键。
+     * 数据还没有排序键时，先调用{@link #assignOrderKeys()}
+     *
+     * @param listener 每次提交后，收到排序键发生变化的数据
+     */
+    public void setOrderKeyAccessor(OrderKeyAccessor<T> accessor, OnOrderKeysChangedListener<T> listener) {
+        mOrderKeyAccessor = accessor;
+        mOnOrderKeysChangedListener = listener;
+    }
+
+    /**
+     * 按当前顺序为所有数据重新分配排序键
+     */
+    public void assignOrderKeys() {
+        if (mOrderKeyAccessor == null) {
+            return;
+        }
+        compact();
+        List<T> changed = new ArrayList<>();
+        rebalanceOrderKeys(0, size() - 1, changed);
+        dispatchOrderKeysChanged(changed);
+    }
+
+    /**
+     * 为index位置的数据生成介于前后数据之间的排序键
+     */
+    private void updateOrderKey(int index) {
+        updateOrderKeys(index, index);
+    }
+
+    /**
+     * 为[first, last]范围内的数据生成介于前后数据之间的排序键
+     */
+    private void updateOrderKeys(int first, int last) {
+        if (mOrderKeyAccessor == null) {
+            return;
+        }
+        int count = size();
+        String before = first > 0 ? getOrderKey(first - 1) : null;
+        String after = last < count - 1 ? getOrderKey(last + 1) : null;
+        List<T> changed = new ArrayList<>();
+        if ((first > 0 && before == null) || (last < count - 1 && after == null)
+                || (before != null && after != null && before.compareTo(after) >= 0)) {
+            // 排序键缺失或顺序错乱，全部重新分配
+            rebalanceOrderKeys(0, count - 1, changed);
+        } else if (first == last) {
+            String key = OrderKeys.between(before, after);
+            if (key.length() <= MAX_ORDER_KEY_LENGTH) {
+                T item = get(first);
+                mOrderKeyAccessor.setOrderKey(item, key);
+                changed.add(item);
+            } else {
+                rebalanceOrderKeysAround(first, last, changed);
+            }
+        } else if (!rebalanceOrderKeys(first, last, changed)) {
+            rebalanceOrderKeysAround(first, last, changed);
+        }
+        dispatchOrderKeysChanged(changed);
+    }
+
+    /**
+     * 交换两个数据的排序键，使其与交换后的位置一致
+     */
+    private void swapOrderKeys(int i, int j) {
+        if (mOrderKeyAccessor == null) {
+            return;
+        }
+        T itemI = get(i);
+        T itemJ = get(j);
+        String keyI = mOrderKeyAccessor.getOrderKey(itemI);
+        mOrderKeyAccessor.setOrderKey(itemI, mOrderKeyAccessor.getOrderKey(itemJ));
+        mOrderKeyAccessor.setOrderKey(itemJ, keyI);
+        List<T> changed = new ArrayList<>(2);
+        changed.add(itemI);
+        changed.add(itemJ);
+        dispatchOrderKeysChanged(changed);
+    }
+
+    /**
+     * 键过长时，以[first, last]为中心逐步扩大范围，直到范围内均匀分配的键足够短
+     */
+    private void rebalanceOrderKeysAround(int first, int last, List<T> changed) {
+        int count = size();
+        int span = ORDER_KEY_REBALANCE_SPAN;
+        while (true) {
+            int start = Math.max(0, first - span);
+            int end = Math.min(count - 1, last + span);
+            if (rebalanceOrderKeys(start, end, changed) || (start == 0 && end == count - 1)) {
+                return;
+            }
+            span *= 2;
+        }
+    }
+
+    /**
+     * 在前后数据的排序键之间，为[start, end]范围内的数据均匀分配排序键
+     *
+     * @return 新的键是否都不超过最大长度。超过时不做修改，范围为全部数据时除外
+     */
+    private boolean rebalanceOrderKeys(int start, int end, List<T> changed) {
+        int count = size();
+        if (start > end) {
+            return true;
+        }
+        String before = start > 0 ? getOrderKey(start - 1) : null;
+        String after = end < count - 1 ? getOrderKey(end + 1) : null;
+        String[] keys = OrderKeys.evenlyBetween(before, after, end - start + 1);
+        boolean whole = start == 0 && end == count - 1;
+        if (!whole) {
+            for (String key : keys) {
+                if (key.length() > MAX_ORDER_KEY_LENGTH) {
+                    return false;
+                }
+            }
+        }
+        for (int i = start; i <= end; i++) {
+            T item = get(i);
+            String key = keys[i - start];
+            if (!key.equals(mOrderKeyAccessor.getOrderKey(item))) {
+                mOrderKeyAccessor.setOrderKey(item, key);
+                changed.add(item);
+            }
+        }
+        return true;
+    }
+
+    private String getOrderKey(int index) {
+        return mOrderKeyAccessor.getOrderKey(get(index));
+    }
+
+    private void dispatchOrderKeysChanged(List<T> changed) {
+        if (mOnOrderKeysChangedListener != null && !changed.isEmpty()) {
+            mOnOrderKeysChangedListener.onOrderKeysChanged(changed);
+        }
+    }
+
+    /**
+     * 以排列方式使用数据：源数据列表保持不变，拖拽和删除只修改显示顺序。此方式下不能添加数据
+     * @see #getPermutation()
+     */
+    public void setPermutedDataList(List<T> sourceList) {
+        setDataList(new PermutedList<>(sourceList));
+    }
+
+    /**
+     * 获取排列方式下当前的显示顺序，即每个位置对应的源数据位置，已移除所有标记删除的数据
+     * @return 非排列方式时返回null
+     */
+    public int[] getPermutation() {
+        compact();
+        if (mDatas instanceof PermutedList) {
+            return ((PermutedList<?>) mDatas).getPermutation();
+        }
+        return null;
+    }
+
+    /**
+     * 排列方式下删除的数据及其源数据位置
+     */
+    private static class PermutedItem {
+        final int sourceIndex;
+        final Object data;
+
+        PermutedItem(int sourceIndex, Object data) {
+            this.sourceIndex = sourceIndex;
+            this.data = data;
+        }
+    }
+
+    /**
+     * 排序键的读写器，排序键通常保存在数据自身中
+     */
+    public interface OrderKeyAccessor<T> {
+
+        String getOrderKey(T item);
+
+        void setOrderKey(T item, String key);
+    }
+
+    /**
+     * 排序键变化的监听器
+     */
+    public interface OnOrderKeysChangedListener<T> {
+
+        /**
+         * @param changedItems 排序键发生变化的数据，只需持久化这些数据
+         */
+        void onOrderKeysChanged(List<T> changedItems);
+    }
+
+    /**
+     * 数据变化的回调，位置均为显示的位置
+     */
+    public interface Callback {
+
+        void onItemMoved(int from, int to);
+
+        void onItemsSwapped(int i, int j);
+
+        /**
+         * 从positionStart开始的order.length个数据重新排列，数量不变
+         *
+         * @param order order[i]为重排后positionStart + i位置上的数据原来的位置
+         * @see DragDataModel#moveItems(int[], int)
+         */
+        void onItemRangeReordered(int positionStart, int[] order);
+
+        void onItemRemoved(int position);
+
+        void onItemInserted(int position);
+
+        /**
+         * 数据列表被整体替换
+         */
+        void onDataSetChanged();
+    }
+}
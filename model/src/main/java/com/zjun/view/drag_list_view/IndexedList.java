@@ -0,0 +1,287 @@
+package com.zjun.view.drag_list_view;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 按位置索引的平衡树列表（按子树大小随机合并的隐式二叉搜索树）
+ * 按位置的读取、插入、删除和移动都是O(log n)，适合数量很大、频繁调整顺序的数据。
+ * 节点保存在基本类型数组中，删除的节点会被复用
+ *
+ * 使用时直接作为DragListViewAdapter的数据列表传入即可
+ */
+public class IndexedList<T> extends AbstractList<T> implements ReorderableList {
+
+    private static final int NIL = -1;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * 节点的左右子节点、子树大小和值
+     */
+    private int[] mLeft;
+    private int[] mRight;
+    private int[] mSize;
+    private Object[] mValues;
+
+    /**
+     * 已分配过的节点数
+     */
+    private int mNodeCount;
+
+    /**
+     * 空闲节点链表的头，通过mLeft相连
+     */
+    private int mFreeNode = NIL;
+
+    private int mRoot = NIL;
+
+    /**
+     * split()的结果：前半部分和后半部分的根
+     */
+    private int mSplitLeft;
+    private int mSplitRight;
+
+    /**
+     * 随机数种子(xorshift)
+     */
+    private int mSeed = 0x2545F491;
+
+    public IndexedList() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    public IndexedList(Collection<? extends T> collection) {
+        Object[] values = collection.toArray();
+        allocate(Math.max(DEFAULT_CAPACITY, values.length));
+        mRoot = build(values, 0, values.length - 1);
+    }
+
+    @Override
+    public int size() {
+        return sizeOf(mRoot);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int location) {
+        return (T) mValues[nodeAt(location)];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(int location, T object) {
+        int node = nodeAt(location);
+        T old = (T) mValues[node];
+        mValues[node] = object;
+        return old;
+    }
+
+    @Override
+    public void add(int location, T object) {
+        if (location < 0 || location > size()) {
+            throw new IndexOutOfBoundsException("Invalid index " + location + ", size is " + size());
+        }
+        int node = obtainNode();
+        mValues[node] = object;
+        insertNode(location, node);
+        modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove(int location) {
+        int node = removeNode(location);
+        T old = (T) mValues[node];
+        recycleNode(node);
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(mValues, 0, mNodeCount, null);
+        mNodeCount = 0;
+        mFreeNode = NIL;
+        mRoot = NIL;
+        modCount++;
+    }
+
+    @Override
+    public void move(int from, int to) {
+        int size = size();
+        if (to < 0 || to >= size) {
+            throw new IndexOutOfBoundsException("Invalid index " + to + ", size is " + size);
+        }
+        if (from == to) {
+            nodeAt(from);
+            return;
+        }
+        // 节点摘下后直接插入，不经过空闲链表
+        insertNode(to, removeNode(from));
+        modCount++;
+    }
+
+    @Override
+    public void swap(int i, int j) {
+        int nodeI = nodeAt(i);
+        int nodeJ = nodeAt(j);
+        Object value = mValues[nodeI];
+        mValues[nodeI] = mValues[nodeJ];
+        mValues[nodeJ] = value;
+    }
+
+    private int nodeAt(int location) {
+        if (location < 0 || location >= size()) {
+            throw new IndexOutOfBoundsException("Invalid index " + location + ", size is " + size());
+        }
+        int node = mRoot;
+        while (true) {
+            int leftSize = sizeOf(mLeft[node]);
+            if (location < leftSize) {
+                node = mLeft[node];
+            } else if (location == leftSize) {
+                return node;
+            } else {
+                location -= leftSize + 1;
+                node = mRight[node];
+            }
+        }
+    }
+
+    private void insertNode(int location, int node) {
+        mLeft[node] = NIL;
+        mRight[node] = NIL;
+        mSize[node] = 1;
+        split(mRoot, location);
+        int right = mSplitRight;
+        mRoot = merge(merge(mSplitLeft, node), right);
+    }
+
+    /**
+     * 从树中摘下location位置的节点，并返回该节点
+     */
+    private int removeNode(int location) {
+        if (location < 0 || location >= size()) {
+            throw new IndexOutOfBoundsException("Invalid index " + location + ", size is " + size());
+        }
+        split(mRoot, location);
+        int left = mSplitLeft;
+        split(mSplitRight, 1);
+        int node = mSplitLeft;
+        mRoot = merge(left, mSplitRight);
+        return node;
+    }
+
+    /**
+     * 把以t为根的树分为前count个节点和其余节点，结果保存在mSplitLeft和mSplitRight中
+     */
+    private void split(int t, int count) {
+        if (t == NIL) {
+            mSplitLeft = NIL;
+            mSplitRight = NIL;
+            return;
+        }
+        int leftSize = sizeOf(mLeft[t]);
+        if (count <= leftSize) {
+            split(mLeft[t], count);
+            mLeft[t] = mSplitRight;
+            update(t);
+            mSplitRight = t;
+        } else {
+            split(mRight[t], count - leftSize - 1);
+            mRight[t] = mSplitLeft;
+            update(t);
+            mSplitLeft = t;
+        }
+    }
+
+    /**
+     * 合并两棵树，a中的节点全部在b之前。按子树大小随机选根，保持树的期望高度为O(log n)
+     */
+    private int merge(int a, int b) {
+        if (a == NIL) {
+            return b;
+        }
+        if (b == NIL) {
+            return a;
+        }
+        if (nextRandom(mSize[a] + mSize[b]) < mSize[a]) {
+            mRight[a] = merge(mRight[a], b);
+            update(a);
+            return a;
+        }
+        mLeft[b] = merge(a, mLeft[b]);
+        update(b);
+        return b;
+    }
+
+    /**
+     * 由values[from..to]构建完全平衡的树
+     */
+    private int build(Object[] values, int from, int to) {
+        if (from > to) {
+            return NIL;
+        }
+        int mid = (from + to) >>> 1;
+        int node = obtainNode();
+        mValues[node] = values[mid];
+        mLeft[node] = build(values, from, mid - 1);
+        mRight[node] = build(values, mid + 1, to);
+        update(node);
+        return node;
+    }
+
+    private void update(int node) {
+        mSize[node] = sizeOf(mLeft[node]) + sizeOf(mRight[node]) + 1;
+    }
+
+    private int sizeOf(int node) {
+        return node == NIL ? 0 : mSize[node];
+    }
+
+    private int obtainNode() {
+        if (mFreeNode != NIL) {
+            int node = mFreeNode;
+            mFreeNode = mLeft[node];
+            return node;
+        }
+        if (mNodeCount == mValues.length) {
+            allocate(mNodeCount * 2);
+        }
+        return mNodeCount++;
+    }
+
+    private void recycleNode(int node) {
+        mValues[node] = null;
+        mLeft[node] = mFreeNode;
+        mFreeNode = node;
+    }
+
+    private void allocate(int capacity) {
+        if (mValues == null) {
+            mLeft = new int[capacity];
+            mRight = new int[capacity];
+            mSize = new int[capacity];
+            mValues = new Object[capacity];
+        } else {
+            mLeft = Arrays.copyOf(mLeft, capacity);
+            mRight = Arrays.copyOf(mRight, capacity);
+            mSize = Arrays.copyOf(mSize, capacity);
+            mValues = Arrays.copyOf(mValues, capacity);
+        }
+    }
+
+    /**
+     * 返回[0, bound)内的随机数
+     */
+    private int nextRandom(int bound) {
+        int x = mSeed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        mSeed = x;
+        return (int) ((x & 0xFFFFFFFFL) % bound);
+    }
+}
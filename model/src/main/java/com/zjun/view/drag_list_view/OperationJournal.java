@@ -0,0 +1,322 @@
+package com.zjun.view.drag_list_view;
+
+import java.util.Arrays;
+
+/**
+ * 数据操作日志
+ * 按顺序记录已提交的移动、交换、删除和插入，每条记录由基本类型的类型和两个参数组成（删除和插入另保存数据本身）。
+ * 支持O(1)的撤销/重做；同一条数据连续的移动合并为一条记录；超过最大条数时丢弃最早的记录。
+ * 可导出某个位置之后的增量，供同步代码只重放变化部分。
+ * 位置是记录的序号，每条新记录的序号都比之前所有记录的大，撤销后再记录也不会重复，
+ * 因此被撤销后又被新记录替换的位置总能识别出来
+ *
+ * @see DragDataModel#setOperationJournal(OperationJournal)
+ */
+public class OperationJournal {
+
+    /**
+     * 移动：参数1为原位置，参数2为新位置
+     */
+    public static final int TYPE_MOVE = 1;
+
+    /**
+     * 交换：两个参数为交换的两个位置
+     */
+    public static final int TYPE_SWAP = 2;
+
+    /**
+     * 删除：参数1为删除的位置
+     */
+    public static final int TYPE_DELETE = 3;
+
+    /**
+     * 插入：参数1为插入的位置
+     */
+    public static final int TYPE_INSERT = 4;
+
+    /**
+     * 导出时每条记录占用的int个数：类型、参数1、参数2
+     */
+    public static final int EXPORT_STRIDE = 3;
+
+    private static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int mMaxEntries;
+
+    /**
+     * 环形数组保存的记录
+     */
+    private int[] mTypes;
+    private int[] mArgs1;
+    private int[] mArgs2;
+    private Object[] mItems;
+    private long[] mSerials;
+
+    /**
+     * 最早一条记录在数组中的位置
+     */
+    private int mHead;
+
+    /**
+     * 保存的记录数，包括已撤销、可重做的记录
+     */
+    private int mSize;
+
+    /**
+     * 已生效的记录数。[mCursor, mSize)为可重做的记录
+     */
+    private int mCursor;
+
+    /**
+     * 最后分配的记录序号
+     */
+    private long mSerial;
+
+    /**
+     * 第一条记录之前的位置：最后一条被丢弃或清空的记录的序号
+     */
+    private long mBase;
+
+    /**
+     * 已交给调用方的位置（getPosition()或导出）。此前的记录不再合并，否则从该位置导出的增量会缺少合并进去的移动
+     */
+    private long mSealed;
+
+    public OperationJournal() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public OperationJournal(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        mMaxEntries = maxEntries;
+        int capacity = Math.min(INITIAL_CAPACITY, maxEntries);
+        mTypes = new int[capacity];
+        mArgs1 = new int[capacity];
+        mArgs2 = new int[capacity];
+        mItems = new Object[capacity];
+        mSerials = new long[capacity];
+    }
+
+    /**
+     * 记录移动。紧接在同一条数据的移动之后时，合并为一条
+     */
+    public void recordMove(int from, int to) {
+        if (from == to) {
+            return;
+        }
+        discardRedo();
+        if (mCursor > 0 && mSerials[physical(mCursor - 1)] > mSealed) {
+            int last = physical(mCursor - 1);
+            if (mTypes[last] == TYPE_MOVE && mArgs2[last] == from) {
+                mArgs2[last] = to;
+                if (mArgs1[last] == to) {
+                    // 移回了原位，相当于没有移动
+                    mSize--;
+                    mCursor--;
+                }
+                return;
+            }
+        }
+        append(TYPE_MOVE, from, to, null);
+    }
+
+    public void recordSwap(int i, int j) {
+        if (i == j) {
+            return;
+        }
+        if (Math.abs(i - j) == 1) {
+            // 相邻的交换等同于移动，可以合并
+            recordMove(i, j);
+            return;
+        }
+        discardRedo();
+        append(TYPE_SWAP, i, j, null);
+    }
+
+    public void recordDelete(int index, Object item) {
+        discardRedo();
+        append(TYPE_DELETE, index, 0, item);
+    }
+
+    public void recordInsert(int index, Object item) {
+        discardRedo();
+        append(TYPE_INSERT, index, 0, item);
+    }
+
+    public boolean canUndo() {
+        return mCursor > 0;
+    }
+
+    public boolean canRedo() {
+        return mCursor < mSize;
+    }
+
+    /**
+     * 撤销最后一条生效的记录
+     *
+     * @return 需要反向执行的记录，没有时返回-1
+     */
+    int undo() {
+        if (mCursor == 0) {
+            return -1;
+        }
+        return --mCursor;
+    }
+
+    /**
+     * 重做下一条已撤销的记录
+     *
+     * @return 需要重新执行的记录，没有时返回-1
+     */
+    int redo() {
+        if (mCursor == mSize) {
+            return -1;
+        }
+        return mCursor++;
+    }
+
+    int getType(int entry) {
+        return mTypes[physical(entry)];
+    }
+
+    int getArg1(int entry) {
+        return mArgs1[physical(entry)];
+    }
+
+    int getArg2(int entry) {
+        return mArgs2[physical(entry)];
+    }
+
+    Object getItem(int entry) {
+        return mItems[physical(entry)];
+    }
+
+    /**
+     * 当前位置，即最后一条生效记录的序号。可作为下次导出的起点，因此此前的记录不再与之后的移动合并
+     */
+    public long getPosition() {
+        mSealed = mCursor == 0 ? mBase : mSerials[physical(mCursor - 1)];
+        return mSealed;
+    }
+
+    /**
+     * 导出从指定位置到当前位置之间生效的记录，每条记录依次为类型、参数1、参数2。
+     * 导出后这些记录不再与之后的移动合并
+     *
+     * @param fromPosition 上次导出时的{@link #getPosition()}
+     * @return 记录数组；起点的记录已被丢弃，或已被撤销（包括撤销后又有新记录）时返回null，此时需全量同步
+     */
+    public int[] export(long fromPosition) {
+        getPosition();
+        int from = indexOf(fromPosition);
+        if (from < 0) {
+            return null;
+        }
+        int[] result = new int[(mCursor - from) * EXPORT_STRIDE];
+        for (int entry = from, i = 0; entry < mCursor; entry++) {
+            int p = physical(entry);
+            result[i++] = mTypes[p];
+            result[i++] = mArgs1[p];
+            result[i++] = mArgs2[p];
+        }
+        return result;
+    }
+
+    /**
+     * 位置之后第一条生效记录的索引
+     *
+     * @return 0 ~ mCursor；位置不在生效的记录中时返回-1
+     */
+    private int indexOf(long position) {
+        if (position == mBase) {
+            return 0;
+        }
+        // 生效记录的序号递增，二分查找
+        int low = 0;
+        int high = mCursor - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long serial = mSerials[physical(mid)];
+            if (serial < position) {
+                low = mid + 1;
+            } else if (serial > position) {
+                high = mid - 1;
+            } else {
+                return mid + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 清空所有记录，例如数据被整体替换时
+     */
+    public void clear() {
+        Arrays.fill(mItems, null);
+        mBase = mSerial;
+        mSealed = mBase;
+        mHead = 0;
+        mSize = 0;
+        mCursor = 0;
+    }
+
+    private void discardRedo() {
+        for (int entry = mCursor; entry < mSize; entry++) {
+            mItems[physical(entry)] = null;
+        }
+        mSize = mCursor;
+    }
+
+    private void append(int type, int arg1, int arg2, Object item) {
+        if (mSize == mTypes.length) {
+            if (mTypes.length < mMaxEntries) {
+                grow(Math.min(mTypes.length * 2, mMaxEntries));
+            } else {
+                // 丢弃最早的记录
+                mItems[mHead] = null;
+                mBase = mSerials[mHead];
+                mHead = (mHead + 1) % mTypes.length;
+                mSize--;
+                mCursor--;
+            }
+        }
+        int p = physical(mSize);
+        mTypes[p] = type;
+        mArgs1[p] = arg1;
+        mArgs2[p] = arg2;
+        mItems[p] = item;
+        mSerials[p] = ++mSerial;
+        mSize++;
+        mCursor++;
+    }
+
+    private void grow(int capacity) {
+        int[] types = new int[capacity];
+        int[] args1 = new int[capacity];
+        int[] args2 = new int[capacity];
+        Object[] items = new Object[capacity];
+        long[] serials = new long[capacity];
+        for (int entry = 0; entry < mSize; entry++) {
+            int p = physical(entry);
+            types[entry] = mTypes[p];
+            args1[entry] = mArgs1[p];
+            args2[entry] = mArgs2[p];
+            items[entry] = mItems[p];
+            serials[entry] = mSerials[p];
+        }
+        mTypes = types;
+        mArgs1 = args1;
+        mArgs2 = args2;
+        mItems = items;
+        mSerials = serials;
+        mHead = 0;
+    }
+
+    private int physical(int entry) {
+        return (mHead + entry) % mTypes.length;
+    }
+}
@@ -0,0 +1,81 @@
+package com.zjun.view.drag_list_view;
+
+/**
+ * 分数排序键
+ * 键为62进制的小数部分（0-9A-Za-z，按ASCII排序），任意两个键之间总能生成新的键，
+ * 因此移动一条数据只需修改它自己的键。键不会以'0'结尾
+ */
+public class OrderKeys {
+
+    private static final String DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    private static final int BASE = DIGITS.length();
+
+    private OrderKeys() {
+    }
+
+    /**
+     * 生成介于两个键之间的键
+     *
+     * @param before 前一个键，为null表示没有下限
+     * @param after  后一个键，为null表示没有上限
+     * @return 满足before < key < after的键
+     */
+    public static String between(String before, String after) {
+        String a = before == null ? "" : before;
+        if (after != null && a.compareTo(after) >= 0) {
+            throw new IllegalArgumentException(before + " >= " + after);
+        }
+        if (a.endsWith("0") || (after != null && after.endsWith("0"))) {
+            throw new IllegalArgumentException("Invalid key: " + before + ", " + after);
+        }
+        return midpoint(a, after);
+    }
+
+    /**
+     * 生成介于两个键之间、均匀分布的count个升序键，长度尽量短
+     */
+    public static String[] evenlyBetween(String before, String after, int count) {
+        String[] keys = new String[count];
+        fill(keys, 0, count, before, after);
+        return keys;
+    }
+
+    private static void fill(String[] keys, int offset, int count, String before, String after) {
+        if (count <= 0) {
+            return;
+        }
+        int mid = count / 2;
+        String key = between(before, after);
+        keys[offset + mid] = key;
+        fill(keys, offset, mid, before, key);
+        fill(keys, offset + mid + 1, count - mid - 1, key, after);
+    }
+
+    /**
+     * @param a 下限，""表示0
+     * @param b 上限，null表示1
+     */
+    private static String midpoint(String a, String b) {
+        if (b != null) {
+            // 跳过相同的前缀（a不足的部分按'0'计）
+            int n = 0;
+            while (n < b.length() && (n < a.length() ? a.charAt(n) : '0') == b.charAt(n)) {
+                n++;
+            }
+            if (n > 0) {
+                return b.substring(0, n) + midpoint(n < a.length() ? a.substring(n) : "", b.substring(n));
+            }
+        }
+        int digitA = a.length() > 0 ? DIGITS.indexOf(a.charAt(0)) : 0;
+        int digitB = b != null ? DIGITS.indexOf(b.charAt(0)) : BASE;
+        if (digitB - digitA > 1) {
+            return String.valueOf(DIGITS.charAt((digitA + digitB + 1) / 2));
+        }
+        // 首位相邻
+        if (b != null && b.length() > 1) {
+            return b.substring(0, 1);
+        }
+        return DIGITS.charAt(digitA) + midpoint(a.length() > 0 ? a.substring(1) : "", null);
+    }
+}
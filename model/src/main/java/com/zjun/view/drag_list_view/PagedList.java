@@ -0,0 +1,250 @@
+package com.zjun.view.drag_list_view;
+
+import java.util.AbstractList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * 分页懒加载的只读列表
+ * 总数固定，数据按页通过{@link PageLoader}异步加载。get()到未加载的位置时返回null（由界面显示占位），并请求加载该页，
+ * 靠近页边界时预加载相邻页。已加载的页按最近使用保留，超过上限时淘汰最久未用的页。
+ * 通常作为{@link PermutedList}的源数据使用：拖拽和删除只修改排列，按源数据位置（即数据的键）记录，
+ * 拖过未加载的区域也不需要加载数据，通过{@link PermutedList#getPermutation()}即可得到新的顺序。
+ * 非线程安全，加载结果会通过{@link #setCallbackExecutor(Executor)}设置的线程（通常为主线程）交回
+ */
+public class PagedList<T> extends AbstractList<T> {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    public static final int DEFAULT_MAX_PAGES = 20;
+
+    private final int mSize;
+    private final int mPageSize;
+    private final PageLoader<T> mLoader;
+
+    /**
+     * 距页边界多少条以内时预加载相邻页
+     */
+    private final int mPrefetchDistance;
+
+    /**
+     * 已加载的页，按访问顺序排列，超过上限时淘汰最久未用的页
+     */
+    private final PageCache mPages;
+
+    /**
+     * 正在加载的页
+     */
+    private final Set<Integer> mLoadingPages = new HashSet<>();
+
+    private Executor mCallbackExecutor;
+    private OnPageLoadedListener mOnPageLoadedListener;
+
+    public PagedList(int size, PageLoader<T> loader) {
+        this(size, loader, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * @param maxPages 最多保留的页数，需大于一屏所占的页数
+     */
+    public PagedList(int size, PageLoader<T> loader, int pageSize, int maxPages) {
+        if (size < 0 || pageSize <= 0 || maxPages <= 0 || loader == null) {
+            throw new IllegalArgumentException("size=" + size + ", pageSize=" + pageSize + ", maxPages=" + maxPages);
+        }
+        mSize = size;
+        mLoader = loader;
+        mPageSize = pageSize;
+        mPrefetchDistance = pageSize / 4;
+        mPages = new PageCache(maxPages);
+    }
+
+    /**
+     * 获取数据，未加载时请求加载并返回null
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int location) {
+        checkIndex(location);
+        int page = location / mPageSize;
+        Object[] items = mPages.get(page);
+        int offset = location - page * mPageSize;
+        if (items == null) {
+            requestPage(page);
+        } else if (offset < mPrefetchDistance) {
+            requestPage(page - 1);
+        } else if (offset >= mPageSize - mPrefetchDistance) {
+            requestPage(page + 1);
+        }
+        return items == null ? null : (T) items[offset];
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * 获取已加载的数据，不请求加载，也不影响页的淘汰顺序
+     */
+    @SuppressWarnings("unchecked")
+    public T peek(int location) {
+        checkIndex(location);
+        int page = location / mPageSize;
+        if (!mPages.containsKey(page)) {
+            return null;
+        }
+        // LinkedHashMap按访问排序时get()会调整顺序，这里遍历查找
+        for (Map.Entry<Integer, Object[]> entry : mPages.entrySet()) {
+            if (entry.getKey() == page) {
+                return (T) entry.getValue()[location - page * mPageSize];
+            }
+        }
+        return null;
+    }
+
+    public boolean isLoaded(int location) {
+        checkIndex(location);
+        return mPages.containsKey(location / mPageSize);
+    }
+
+    public int getLoadedPageCount() {
+        return mPages.size();
+    }
+
+    /**
+     * 设置交回加载结果的线程。为null时在加载器回调的线程中直接处理
+     */
+    public void setCallbackExecutor(Executor executor) {
+        mCallbackExecutor = executor;
+    }
+
+    public void setOnPageLoadedListener(OnPageLoadedListener listener) {
+        mOnPageLoadedListener = listener;
+    }
+
+    private void requestPage(int page) {
+        if (page < 0 || page * mPageSize >= mSize || mPages.containsKey(page) || !mLoadingPages.add(page)) {
+            return;
+        }
+        int start = page * mPageSize;
+        mLoader.loadPage(start, Math.min(mPageSize, mSize - start), new PageCallback(page));
+    }
+
+    private void onPageLoaded(int page, List<T> items) {
+        if (!mLoadingPages.remove(page)) {
+            return;
+        }
+        int start = page * mPageSize;
+        int count = Math.min(mPageSize, mSize - start);
+        if (items == null || items.size() < count) {
+            // 加载失败或数据不全，下次访问时重新加载
+            return;
+        }
+        Object[] array = new Object[count];
+        for (int i = 0; i < count; i++) {
+            array[i] = items.get(i);
+        }
+        mPages.put(page, array);
+        if (mOnPageLoadedListener != null) {
+            mOnPageLoadedListener.onPageLoaded(start, count);
+        }
+    }
+
+    private void checkIndex(int location) {
+        if (location < 0 || location >= mSize) {
+            throw new IndexOutOfBoundsException("Invalid index " + location + ", size is " + mSize);
+        }
+    }
+
+    /**
+     * 按访问顺序保存已加载的页，超过上限时淘汰最久未用的页
+     */
+    private static class PageCache extends LinkedHashMap<Integer, Object[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int mMaxPages;
+
+        PageCache(int maxPages) {
+            super(16, .75f, true);
+            mMaxPages = maxPages;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object[]> eldest) {
+            return size() > mMaxPages;
+        }
+    }
+
+    /**
+     * 一页的加载回调
+     */
+    private class PageCallback implements LoadCallback<T>, Runnable {
+        private final int mPage;
+        private volatile List<T> mItems;
+
+        PageCallback(int page) {
+            mPage = page;
+        }
+
+        @Override
+        public void onLoaded(List<T> items) {
+            mItems = items;
+            deliver();
+        }
+
+        @Override
+        public void onFailed() {
+            mItems = null;
+            deliver();
+        }
+
+        private void deliver() {
+            if (mCallbackExecutor != null) {
+                mCallbackExecutor.execute(this);
+            } else {
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            onPageLoaded(mPage, mItems);
+        }
+    }
+
+    /**
+     * 分页加载器，可在任意线程中加载
+     */
+    public interface PageLoader<T> {
+
+        /**
+         * 加载[start, start + count)范围的数据，完成后调用callback
+         */
+        void loadPage(int start, int count, LoadCallback<T> callback);
+    }
+
+    public interface LoadCallback<T> {
+
+        /**
+         * @param items 按位置排列的count条数据
+         */
+        void onLoaded(List<T> items);
+
+        /**
+         * 加载失败，之后访问该页时会重新加载
+         */
+        void onFailed();
+    }
+
+    /**
+     * 页加载完成的监听器
+     */
+    public interface OnPageLoadedListener {
+
+        void onPageLoaded(int start, int count);
+    }
+}
@@ -0,0 +1,169 @@
+package com.zjun.view.drag_list_view;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 源数据的排列视图
+ * 源数据列表保持不变，显示顺序保存在int数组中。移动和删除只修改该数组，不会修改源数据，
+ * 因此同一份数据可在多个界面共享。不支持插入和替换元素，只能恢复删除的元素（如撤销删除）
+ */
+public class PermutedList<T> extends AbstractList<T> implements ReorderableList {
+
+    private final List<T> mSource;
+
+    /**
+     * 显示顺序：位置i上显示的是源数据中mOrder[i]位置的元素
+     */
+    private final int[] mOrder;
+
+    /**
+     * mOrder的逆排列：源数据中i位置的元素显示在mLocations[i]位置，已删除时为-1
+     */
+    private final int[] mLocations;
+
+    private int mSize;
+
+    public PermutedList(List<T> source) {
+        mSource = source;
+        mSize = source.size();
+        mOrder = new int[mSize];
+        mLocations = new int[mSize];
+        for (int i = 0; i < mSize; i++) {
+            mOrder[i] = i;
+            mLocations[i] = i;
+        }
+    }
+
+    @Override
+    public T get(int location) {
+        return mSource.get(getSourceIndex(location));
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public T remove(int location) {
+        T old = get(location);
+        mLocations[mOrder[location]] = -1;
+        System.arraycopy(mOrder, location + 1, mOrder, location, mSize - location - 1);
+        mSize--;
+        updateLocations(location, mSize - 1);
+        modCount++;
+        return old;
+    }
+
+    /**
+     * 在location位置恢复已删除的源数据
+     *
+     * @param sourceIndex 删除前{@link #getSourceIndex(int)}返回的位置
+     */
+    void restore(int location, int sourceIndex) {
+        if (location < 0 || location > mSize) {
+            throw new IndexOutOfBoundsException("Invalid index " + location + ", size is " + mSize);
+        }
+        if (mSize == mOrder.length) {
+            throw new IllegalStateException("No deleted element to restore");
+        }
+        System.arraycopy(mOrder, location, mOrder, location + 1, mSize - location);
+        mOrder[location] = sourceIndex;
+        mSize++;
+        updateLocations(location, mSize - 1);
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(mLocations, -1);
+        mSize = 0;
+        modCount++;
+    }
+
+    @Override
+    public void move(int from, int to) {
+        checkIndex(from);
+        checkIndex(to);
+        int sourceIndex = mOrder[from];
+        if (from < to) {
+            System.arraycopy(mOrder, from + 1, mOrder, from, to - from);
+        } else {
+            System.arraycopy(mOrder, to, mOrder, to + 1, from - to);
+        }
+        mOrder[to] = sourceIndex;
+        updateLocations(Math.min(from, to), Math.max(from, to));
+        modCount++;
+    }
+
+    @Override
+    public void swap(int i, int j) {
+        checkIndex(i);
+        checkIndex(j);
+        int sourceIndex = mOrder[i];
+        mOrder[i] = mOrder[j];
+        mOrder[j] = sourceIndex;
+        mLocations[mOrder[i]] = i;
+        mLocations[mOrder[j]] = j;
+    }
+
+    /**
+     * 重排[start, start + order.length)范围：重排后start + i位置上为原来order[i]位置的元素
+     */
+    void reorder(int start, int[] order) {
+        int[] old = Arrays.copyOfRange(mOrder, start, start + order.length);
+        for (int i = 0; i < order.length; i++) {
+            mOrder[start + i] = old[order[i] - start];
+        }
+        updateLocations(start, start + order.length - 1);
+        modCount++;
+    }
+
+    /**
+     * 获取显示位置对应的源数据位置
+     */
+    public int getSourceIndex(int location) {
+        checkIndex(location);
+        return mOrder[location];
+    }
+
+    /**
+     * 获取源数据位置当前的显示位置，O(1)
+     *
+     * @return 已删除时返回-1
+     */
+    public int getLocation(int sourceIndex) {
+        if (sourceIndex < 0 || sourceIndex >= mLocations.length) {
+            throw new IndexOutOfBoundsException("Invalid source index " + sourceIndex + ", size is " + mLocations.length);
+        }
+        return mLocations[sourceIndex];
+    }
+
+    /**
+     * 获取当前的显示顺序，即每个位置对应的源数据位置。已删除的源数据不在其中
+     */
+    public int[] getPermutation() {
+        return Arrays.copyOf(mOrder, mSize);
+    }
+
+    public List<T> getSource() {
+        return mSource;
+    }
+
+    /**
+     * 更新[start, end]范围内的元素的显示位置
+     */
+    private void updateLocations(int start, int end) {
+        for (int i = start; i <= end; i++) {
+            mLocations[mOrder[i]] = i;
+        }
+    }
+
+    private void checkIndex(int location) {
+        if (location < 0 || location >= mSize) {
+            throw new IndexOutOfBoundsException("Invalid index " + location + ", size is " + mSize);
+        }
+    }
+}
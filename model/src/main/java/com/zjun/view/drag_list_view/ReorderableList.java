@@ -0,0 +1,17 @@
+package com.zjun.view.drag_list_view;
+
+/**
+ * 支持直接移动的列表。DragListViewAdapter遇到此类列表时，移动不再拆成删除+插入
+ */
+public interface ReorderableList {
+
+    /**
+     * 把from位置的元素移动到to位置，中间的元素依次顺移
+     */
+    void move(int from, int to);
+
+    /**
+     * 交换i和j位置的元素
+     */
+    void swap(int i, int j);
+}
@@ -0,0 +1,307 @@
+package com.zjun.view.drag_list_view;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 延迟写入的持久化队列
+ * 已提交的移动、删除和插入按顺序记录，同一数据相邻的操作合并：连续的移动合并为一次，移动后删除只保留删除，
+ * 插入后又删除则两者都不写入。不同数据的操作之间有先后依赖（位置会互相影响），所以不跨越其他数据的操作合并。
+ * 列表空闲一段时间后或调用{@link #flush()}时，在后台线程中把合并后的操作作为一批交给{@link Sink}，
+ * 按顺序依次执行即可得到最新的顺序，通常在一个事务中写入。写入失败时，这批操作会与之后的操作合并，下次再写入。
+ * 数据以equals()区分，同一列表中的数据需各不相同
+ *
+ * @see DragDataModel#setWriteBehindQueue(WriteBehindQueue)
+ */
+public class WriteBehindQueue<T> {
+
+    /**
+     * 默认的空闲时长(ms)：最后一次操作后经过此时长，自动写入
+     */
+    public static final long DEFAULT_IDLE_DELAY = 500;
+
+    /**
+     * 移动：把fromIndex位置的数据移动到index位置
+     */
+    public static final int TYPE_MOVE = 1;
+
+    /**
+     * 删除：删除index位置的数据
+     */
+    public static final int TYPE_DELETE = 2;
+
+    /**
+     * 插入：在index位置插入数据
+     */
+    public static final int TYPE_INSERT = 3;
+
+    private final Sink<T> mSink;
+    private final ScheduledExecutorService mExecutor;
+    private final boolean mOwnsExecutor;
+    private final long mIdleDelay;
+
+    /**
+     * 未写入的操作，按记录的顺序排列，同一数据相邻的操作已合并
+     */
+    private List<Operation<T>> mPending = new ArrayList<>();
+
+    private ScheduledFuture<?> mIdleFlush;
+
+    private final Callable<Void> mFlushTask = new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+            writePending();
+            return null;
+        }
+    };
+
+    /**
+     * 使用自带的后台线程，空闲{@link #DEFAULT_IDLE_DELAY}毫秒后写入
+     */
+    public WriteBehindQueue(Sink<T> sink) {
+        this(sink, Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "DragListView-WriteBehind");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }), DEFAULT_IDLE_DELAY, true);
+    }
+
+    /**
+     * @param executor 执行写入的线程池，需保证同一时间只有一次写入（如单线程）
+     * @param idleDelay 最后一次操作后自动写入的空闲时长(ms)，小于0时只在调用flush()时写入
+     */
+    public WriteBehindQueue(Sink<T> sink, ScheduledExecutorService executor, long idleDelay) {
+        this(sink, executor, idleDelay, false);
+    }
+
+    private WriteBehindQueue(Sink<T> sink, ScheduledExecutorService executor, long idleDelay, boolean ownsExecutor) {
+        if (sink == null || executor == null) {
+            throw new IllegalArgumentException("sink and executor must not be null");
+        }
+        mSink = sink;
+        mExecutor = executor;
+        mIdleDelay = idleDelay;
+        mOwnsExecutor = ownsExecutor;
+    }
+
+    /**
+     * 记录数据被移动
+     */
+    public void recordMove(T item, int from, int to) {
+        if (from == to) {
+            return;
+        }
+        synchronized (this) {
+            merge(mPending, new Operation<>(TYPE_MOVE, item, from, to));
+        }
+        scheduleIdleFlush();
+    }
+
+    /**
+     * 记录数据被删除
+     */
+    public void recordDelete(T item, int index) {
+        synchronized (this) {
+            merge(mPending, new Operation<>(TYPE_DELETE, item, index, index));
+        }
+        scheduleIdleFlush();
+    }
+
+    /**
+     * 记录插入了数据
+     */
+    public void recordInsert(T item, int index) {
+        synchronized (this) {
+            merge(mPending, new Operation<>(TYPE_INSERT, item, index, index));
+        }
+        scheduleIdleFlush();
+    }
+
+    /**
+     * 未写入的操作数（合并后）
+     */
+    public synchronized int getPendingCount() {
+        return mPending.size();
+    }
+
+    /**
+     * 立即在后台写入所有未写入的操作
+     *
+     * @return 可用于等待写入完成；写入失败时，get()抛出Sink的异常
+     */
+    public Future<Void> flush() {
+        synchronized (this) {
+            if (mIdleFlush != null) {
+                mIdleFlush.cancel(false);
+                mIdleFlush = null;
+            }
+        }
+        return mExecutor.submit(mFlushTask);
+    }
+
+    /**
+     * 写入所有未写入的操作。使用自带的后台线程时，写入后结束该线程
+     */
+    public Future<Void> shutdown() {
+        Future<Void> future = flush();
+        if (mOwnsExecutor) {
+            mExecutor.shutdown();
+        }
+        return future;
+    }
+
+    private void scheduleIdleFlush() {
+        if (mIdleDelay < 0) {
+            return;
+        }
+        synchronized (this) {
+            if (mIdleFlush != null) {
+                mIdleFlush.cancel(false);
+            }
+            mIdleFlush = mExecutor.schedule(mFlushTask, mIdleDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 在后台线程中执行：取出所有未写入的操作作为一批写入，失败时放回
+     */
+    private void writePending() throws Exception {
+        List<Operation<T>> batch;
+        synchronized (this) {
+            if (mPending.isEmpty()) {
+                return;
+            }
+            batch = mPending;
+            mPending = new ArrayList<>();
+        }
+        try {
+            mSink.write(Collections.unmodifiableList(new ArrayList<>(batch)));
+        } catch (Exception e) {
+            synchronized (this) {
+                // 写入期间新记录的操作合并到失败的这批之后
+                for (Operation<T> operation : mPending) {
+                    merge(batch, operation);
+                }
+                mPending = batch;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 追加操作，与最后一个操作属于同一数据时合并
+     */
+    private static <T> void merge(List<Operation<T>> pending, Operation<T> operation) {
+        int last = pending.size() - 1;
+        Operation<T> previous = last < 0 ? null : pending.get(last);
+        if (previous == null || !previous.item.equals(operation.item)) {
+            pending.add(operation);
+            return;
+        }
+        switch (operation.type) {
+            case TYPE_MOVE:
+                // 连续的移动只保留最新的位置，回到原位时不再写入；未写入的插入直接插入到最新的位置
+                previous.index = operation.index;
+                if (previous.type == TYPE_MOVE && previous.fromIndex == previous.index) {
+                    pending.remove(last);
+                }
+                break;
+            case TYPE_DELETE:
+                if (previous.type == TYPE_INSERT) {
+                    // 插入后又删除，都不需要写入
+                    pending.remove(last);
+                } else {
+                    // 移动后删除，相当于在移动前的位置删除
+                    previous.type = TYPE_DELETE;
+                    previous.index = previous.fromIndex;
+                }
+                break;
+            case TYPE_INSERT:
+                if (previous.type == TYPE_DELETE) {
+                    // 删除后又插入（如撤销删除），相当于从原位置移动到新位置
+                    previous.type = TYPE_MOVE;
+                    previous.index = operation.index;
+                    if (previous.fromIndex == previous.index) {
+                        pending.remove(last);
+                    }
+                } else {
+                    pending.add(operation);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 合并后的一个操作
+     */
+    public static class Operation<T> {
+        int type;
+        final T item;
+        final int fromIndex;
+        int index;
+
+        Operation(int type, T item, int fromIndex, int index) {
+            this.type = type;
+            this.item = item;
+            this.fromIndex = fromIndex;
+            this.index = index;
+        }
+
+        /**
+         * @return {@link #TYPE_MOVE}、{@link #TYPE_DELETE}或{@link #TYPE_INSERT}
+         */
+        public int getType() {
+            return type;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * 移动前的位置。删除和插入时与getIndex()相同
+         */
+        public int getFromIndex() {
+            return fromIndex;
+        }
+
+        /**
+         * 移动后的位置、删除的位置或插入的位置，均为按顺序执行到此操作时的位置
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public String toString() {
+            return "Operation{type=" + type + ", item=" + item + ", fromIndex=" + fromIndex + ", index=" + index + "}";
+        }
+    }
+
+    /**
+     * 持久化的目标，如数据库或网络
+     */
+    public interface Sink<T> {
+
+        /**
+         * 在后台线程中调用，写入一批合并后的操作，通常在一个事务中完成。
+         * 抛出异常时，这批操作会在下次写入时重试
+         *
+         * @param operations 按记录的顺序排列，需依次执行
+         */
+        void write(List<Operation<T>> operations) throws Exception;
+    }
+}
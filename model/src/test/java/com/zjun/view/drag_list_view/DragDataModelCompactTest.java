@@ -0,0 +1,174 @@
+package com.zjun.view.drag_list_view;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 测试标记删除：与ArrayList对照，随机标记删除并穿插其他操作，显示的数据及一次性移除后的数据都应一致
+ */
+public class DragDataModelCompactTest {
+
+    @Test
+    public void randomMarkDeletedMatchesArrayList() {
+        runRandomOperations(new ArrayList<Integer>(), 8);
+    }
+
+    @Test
+    public void randomMarkDeletedOnLinkedList() {
+        // 非RandomAccess的列表逐个移除
+        runRandomOperations(new LinkedList<Integer>(), 9);
+    }
+
+    @Test
+    public void toDataIndexSkipsMarkedItems() {
+        DragDataModel<String> model = new DragDataModel<>(new ArrayList<>(Arrays.asList("a", "b", "c", "d", "e", "f")));
+        model.markDeleted(1);
+        // 显示为[a, c, d, e, f]，再删除d
+        model.markDeleted(2);
+
+        assertEquals(4, model.size());
+        assertEquals(0, model.toDataIndex(0));
+        assertEquals(2, model.toDataIndex(1));
+        assertEquals(4, model.toDataIndex(2));
+        assertEquals(5, model.toDataIndex(3));
+        assertEquals("e", model.get(2));
+    }
+
+    @Test
+    public void getPositionSkipsMarkedItems() {
+        DragDataModel<String> model = new DragDataModel<>(null);
+        model.setPermutedDataList(Arrays.asList("a", "b", "c", "d", "e", "f"));
+        model.move(0, 5);
+        // 显示为[b, c, d, e, f, a]，标记删除c
+        model.markDeleted(1);
+
+        assertEquals(0, model.getPosition(1));
+        assertEquals(-1, model.getPosition(2));
+        assertEquals(1, model.getPosition(3));
+        assertEquals(4, model.getPosition(0));
+        model.delete(0);
+        assertEquals(-1, model.getPosition(1));
+        assertEquals(3, model.getPosition(0));
+    }
+
+    @Test
+    public void compactDoesNotNotify() {
+        DragDataModel<String> model = new DragDataModel<>(new ArrayList<>(Arrays.asList("a", "b", "c", "d")));
+        final int[] notifies = new int[1];
+        model.setCallback(new DragDataModel.Callback() {
+            @Override
+            public void onItemMoved(int from, int to) {
+                notifies[0]++;
+            }
+
+            @Override
+            public void onItemsSwapped(int i, int j) {
+                notifies[0]++;
+            }
+
+            @Override
+            public void onItemRangeReordered(int positionStart, int[] order) {
+                notifies[0]++;
+            }
+
+            @Override
+            public void onItemRemoved(int position) {
+                notifies[0]++;
+            }
+
+            @Override
+            public void onItemInserted(int position) {
+                notifies[0]++;
+            }
+
+            @Override
+            public void onDataSetChanged() {
+                notifies[0]++;
+            }
+        });
+        model.markDeleted(3);
+        model.markDeleted(0);
+        assertEquals(2, notifies[0]);
+
+        model.compact();
+        assertEquals(2, notifies[0]);
+        assertEquals(Arrays.asList("b", "c"), model.getDataList());
+    }
+
+    @Test
+    public void markDeletedIsUndoneInPlace() {
+        DragDataModel<String> model = new DragDataModel<>(new ArrayList<>(Arrays.asList("a", "b", "c", "d")));
+        model.setOperationJournal(new OperationJournal(8));
+        model.markDeleted(2);
+        model.markDeleted(0);
+
+        assertTrue(model.undo());
+        assertTrue(model.undo());
+        assertEquals(Arrays.asList("a", "b", "c", "d"), model.getDataList());
+    }
+
+    private static void runRandomOperations(List<Integer> datas, long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < 100; i++) {
+            datas.add(i);
+        }
+        DragDataModel<Integer> model = new DragDataModel<>(datas);
+        List<Integer> expected = new ArrayList<>(datas);
+        int next = 100;
+        for (int i = 0; i < 2000; i++) {
+            int size = expected.size();
+            int op = size < 10 ? 3 : random.nextInt(8);
+            switch (op) {
+                case 0:
+                case 1:
+                case 2: {
+                    // 连续标记删除最常见
+                    int position = random.nextInt(size);
+                    model.markDeleted(position);
+                    expected.remove(position);
+                    break;
+                }
+                case 3: {
+                    int location = random.nextInt(size + 1);
+                    model.add(location, next);
+                    expected.add(location, next);
+                    next++;
+                    break;
+                }
+                case 4: {
+                    int from = random.nextInt(size);
+                    int to = random.nextInt(size);
+                    model.move(from, to);
+                    expected.add(to, expected.remove(from));
+                    break;
+                }
+                case 5: {
+                    int position = random.nextInt(size);
+                    model.delete(position);
+                    expected.remove(position);
+                    break;
+                }
+                case 6:
+                    model.compact();
+                    break;
+                default:
+                    break;
+            }
+            assertEquals(expected.size(), model.size());
+            int position = random.nextInt(expected.size());
+            assertEquals(expected.get(position), model.get(position));
+        }
+        for (int position = 0; position < expected.size(); position++) {
+            assertEquals(expected.get(position), model.get(position));
+        }
+        assertEquals(expected, model.getDataList());
+    }
+}
@@ -0,0 +1,189 @@
+package com.zjun.view.drag_list_view;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 测试多条数据作为一组的移动
+ */
+public class DragDataModelTest {
+
+    private DragDataModel<String> mModel;
+    private RecordingCallback mCallback;
+
+    @Before
+    public void setUp() {
+        mModel = new DragDataModel<>(new ArrayList<>(Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h")));
+        mCallback = new RecordingCallback();
+        mModel.setCallback(mCallback);
+    }
+
+    @Test
+    public void moveItemsDownKeepsRelativeOrder() {
+        mModel.moveItems(new int[]{1, 3, 4}, 4);
+
+        assertEquals(Arrays.asList("a", "c", "f", "g", "b", "d", "e", "h"), mModel.getDataList());
+        // 只通知一次，范围为位置发生变化的部分
+        assertEquals(1, mCallback.reorders.size());
+        assertEquals(1, mCallback.reorders.get(0)[0]);
+        assertEquals(6, mCallback.reorders.get(0)[1]);
+    }
+
+    @Test
+    public void moveItemsAcrossTarget() {
+        mModel.moveItems(new int[]{0, 5, 7}, 2);
+
+        assertEquals(Arrays.asList("b", "c", "a", "f", "h", "d", "e", "g"), mModel.getDataList());
+    }
+
+    @Test
+    public void moveItemsIsUndoneStepByStep() {
+        mModel.setOperationJournal(new OperationJournal(16));
+        mModel.moveItems(new int[]{0, 2, 6, 7}, 3);
+        List<String> moved = new ArrayList<>(mModel.getDataList());
+
+        while (mModel.undo()) {
+            // 逐条撤销
+        }
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h"), mModel.getDataList());
+        while (mModel.redo()) {
+            // 逐条重做
+        }
+        assertEquals(moved, mModel.getDataList());
+    }
+
+    @Test
+    public void moveItemsOnPermutedList() {
+        mModel.setPermutedDataList(Arrays.asList("a", "b", "c", "d", "e"));
+        mModel.moveItems(new int[]{3, 4}, 0);
+
+        assertTrue(Arrays.equals(new int[]{3, 4, 0, 1, 2}, mModel.getPermutation()));
+    }
+
+    @Test
+    public void undoDeleteOnPermutedList() {
+        mModel.setPermutedDataList(Arrays.asList("a", "b", "c", "d", "e"));
+        mModel.setOperationJournal(new OperationJournal(16));
+        mModel.move(0, 4);
+        mModel.delete(1);
+        mModel.markDeleted(2);
+
+        assertTrue(Arrays.equals(new int[]{1, 3, 0}, mModel.getPermutation()));
+        while (mModel.undo()) {
+            // 逐条撤销，删除的数据按源数据位置恢复
+        }
+        assertTrue(Arrays.equals(new int[]{0, 1, 2, 3, 4}, mModel.getPermutation()));
+        while (mModel.redo()) {
+            // 逐条重做
+        }
+        assertTrue(Arrays.equals(new int[]{1, 3, 0}, mModel.getPermutation()));
+    }
+
+    @Test
+    public void unloadedItemsAreNotRecorded() {
+        PagedList<String> paged = new PagedList<>(20, new PagedList.PageLoader<String>() {
+            @Override
+            public void loadPage(int start, int count, PagedList.LoadCallback<String> callback) {
+                // 只有第一页能加载
+                if (start == 0) {
+                    List<String> items = new ArrayList<>();
+                    for (int i = 0; i < count; i++) {
+                        items.add("item" + (start + i));
+                    }
+                    callback.onLoaded(items);
+                }
+            }
+        }, 10, 2);
+        mModel.setPermutedDataList(paged);
+        mModel.setOperationJournal(new OperationJournal(16));
+        mModel.get(0);
+
+        assertTrue(mModel.isLoaded(3));
+        assertFalse(mModel.isLoaded(15));
+        // 未加载的数据可以被移动经过，但不能作为删除的数据记录
+        mModel.move(3, 18);
+        assertEquals(3, mModel.getSourceIndex(18));
+        try {
+            mModel.delete(15);
+            fail("Deleting an unloaded item should be rejected");
+        } catch (IllegalStateException expected) {
+            assertEquals(20, mModel.size());
+        }
+        mModel.delete(18);
+        assertTrue(mModel.undo());
+        assertEquals(3, mModel.getSourceIndex(18));
+    }
+
+    @Test
+    public void moveItemsKeepsOrderKeysSorted() {
+        final Map<String, String> keys = new HashMap<>();
+        final List<String> changed = new ArrayList<>();
+        mModel.setOrderKeyAccessor(new DragDataModel.OrderKeyAccessor<String>() {
+            @Override
+            public String getOrderKey(String item) {
+                return keys.get(item);
+            }
+
+            @Override
+            public void setOrderKey(String item, String key) {
+                keys.put(item, key);
+            }
+        }, new DragDataModel.OnOrderKeysChangedListener<String>() {
+            @Override
+            public void onOrderKeysChanged(List<String> changedItems) {
+                changed.addAll(changedItems);
+            }
+        });
+        mModel.assignOrderKeys();
+        changed.clear();
+
+        mModel.moveItems(new int[]{1, 2, 6}, 4);
+
+        // 只为移动的数据生成新键
+        assertEquals(3, changed.size());
+        List<String> list = mModel.getDataList();
+        for (int i = 1; i < list.size(); i++) {
+            assertTrue(keys.get(list.get(i - 1)).compareTo(keys.get(list.get(i))) < 0);
+        }
+    }
+
+    private static class RecordingCallback implements DragDataModel.Callback {
+        final List<int[]> reorders = new ArrayList<>();
+
+        @Override
+        public void onItemMoved(int from, int to) {
+        }
+
+        @Override
+        public void onItemsSwapped(int i, int j) {
+        }
+
+        @Override
+        public void onItemRangeReordered(int positionStart, int[] order) {
+            reorders.add(new int[]{positionStart, order.length});
+        }
+
+        @Override
+        public void onItemRemoved(int position) {
+        }
+
+        @Override
+        public void onItemInserted(int position) {
+        }
+
+        @Override
+        public void onDataSetChanged() {
+        }
+    }
+}
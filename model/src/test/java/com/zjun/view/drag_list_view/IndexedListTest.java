@@ -0,0 +1,132 @@
+package com.zjun.view.drag_list_view;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 与ArrayList对照，随机执行读取、插入、删除、替换、移动和交换
+ */
+public class IndexedListTest {
+
+    @Test
+    public void randomOperationsMatchArrayList() {
+        Random random = new Random(6);
+        IndexedList<Integer> list = new IndexedList<>();
+        List<Integer> expected = new ArrayList<>();
+        int next = 0;
+        for (int i = 0; i < 5000; i++) {
+            int size = expected.size();
+            int op = size == 0 ? 0 : random.nextInt(6);
+            switch (op) {
+                case 0: {
+                    int location = random.nextInt(size + 1);
+                    list.add(location, next);
+                    expected.add(location, next);
+                    next++;
+                    break;
+                }
+                case 1: {
+                    int location = random.nextInt(size);
+                    assertEquals(expected.remove(location), list.remove(location));
+                    break;
+                }
+                case 2: {
+                    int location = random.nextInt(size);
+                    assertEquals(expected.set(location, next), list.set(location, next));
+                    next++;
+                    break;
+                }
+                case 3: {
+                    int from = random.nextInt(size);
+                    int to = random.nextInt(size);
+                    list.move(from, to);
+                    expected.add(to, expected.remove(from));
+                    break;
+                }
+                case 4: {
+                    int a = random.nextInt(size);
+                    int b = random.nextInt(size);
+                    list.swap(a, b);
+                    Collections.swap(expected, a, b);
+                    break;
+                }
+                default: {
+                    int location = random.nextInt(size);
+                    assertEquals(expected.get(location), list.get(location));
+                    break;
+                }
+            }
+            assertEquals(expected.size(), list.size());
+        }
+        assertEquals(expected, list);
+    }
+
+    @Test
+    public void refillAfterRemovingEverything() {
+        IndexedList<Integer> list = new IndexedList<>();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100; i++) {
+                list.add(i);
+            }
+            while (!list.isEmpty()) {
+                list.remove(list.size() / 2);
+            }
+        }
+        list.addAll(Arrays.asList(1, 2, 3));
+
+        assertEquals(Arrays.asList(1, 2, 3), list);
+    }
+
+    @Test
+    public void clearAndBuildFromCollection() {
+        List<Integer> source = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            source.add(i);
+        }
+        IndexedList<Integer> list = new IndexedList<>(source);
+        assertEquals(source, list);
+
+        Iterator<Integer> iterator = list.iterator();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(iterator.hasNext());
+            assertEquals(i, (int) iterator.next());
+        }
+        list.clear();
+        assertEquals(0, list.size());
+        list.add(7);
+        assertEquals(Collections.singletonList(7), list);
+    }
+
+    @Test
+    public void outOfRangeIsRejected() {
+        IndexedList<Integer> list = new IndexedList<>(Arrays.asList(1, 2, 3));
+        try {
+            list.get(3);
+            fail("get(size) should throw");
+        } catch (IndexOutOfBoundsException expected) {
+            // 预期
+        }
+        try {
+            list.add(5, 0);
+            fail("add(size + 1) should throw");
+        } catch (IndexOutOfBoundsException expected) {
+            // 预期
+        }
+        try {
+            list.move(0, 3);
+            fail("move() to size should throw");
+        } catch (IndexOutOfBoundsException expected) {
+            // 预期
+        }
+    }
+}
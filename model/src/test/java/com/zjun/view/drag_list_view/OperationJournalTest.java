@@ -0,0 +1,238 @@
+package com.zjun.view.drag_list_view;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 测试操作日志的合并、撤销/重做、增量导出及超出上限时丢弃最早的记录
+ */
+public class OperationJournalTest {
+
+    private OperationJournal mJournal;
+
+    @Before
+    public void setUp() {
+        mJournal = new OperationJournal(8);
+    }
+
+    @Test
+    public void movesAfterPositionAreNotMergedIntoEarlierEntry() {
+        mJournal.recordMove(0, 3);
+        long position = mJournal.getPosition();
+        // 同一条数据继续移动，但之前的位置已交给调用方
+        mJournal.recordMove(3, 5);
+
+        assertArrayEquals(new int[]{OperationJournal.TYPE_MOVE, 3, 5}, mJournal.export(position));
+    }
+
+    @Test
+    public void consecutiveMovesMerge() {
+        mJournal.recordMove(0, 3);
+        mJournal.recordMove(3, 5);
+        // 另一条数据的移动不合并
+        mJournal.recordMove(1, 2);
+
+        assertArrayEquals(new int[]{
+                OperationJournal.TYPE_MOVE, 0, 5,
+                OperationJournal.TYPE_MOVE, 1, 2}, mJournal.export(0));
+    }
+
+    @Test
+    public void moveBackToOriginIsDropped() {
+        mJournal.recordMove(2, 4);
+        mJournal.recordMove(4, 2);
+
+        assertFalse(mJournal.canUndo());
+        assertEquals(0, mJournal.getPosition());
+    }
+
+    @Test
+    public void newRecordDiscardsRedo() {
+        mJournal.recordDelete(0, "a");
+        mJournal.recordInsert(1, "b");
+        mJournal.undo();
+        assertTrue(mJournal.canRedo());
+
+        mJournal.recordSwap(0, 3);
+        assertFalse(mJournal.canRedo());
+        assertArrayEquals(new int[]{
+                OperationJournal.TYPE_DELETE, 0, 0,
+                OperationJournal.TYPE_SWAP, 0, 3}, mJournal.export(0));
+    }
+
+    @Test
+    public void oldestEntriesAreDroppedBeyondMax() {
+        for (int i = 0; i < 12; i++) {
+            mJournal.recordSwap(0, 2 + i);
+        }
+
+        assertEquals(12, mJournal.getPosition());
+        // 起点已被丢弃，需全量同步
+        assertNull(mJournal.export(0));
+        assertNull(mJournal.export(3));
+        int[] exported = mJournal.export(4);
+        assertEquals(8 * OperationJournal.EXPORT_STRIDE, exported.length);
+        assertEquals(6, exported[2]);
+        int undone = 0;
+        while (mJournal.undo() >= 0) {
+            undone++;
+        }
+        assertEquals(8, undone);
+    }
+
+    @Test
+    public void exportFromUndonePositionReturnsNull() {
+        mJournal.recordSwap(0, 2);
+        mJournal.recordSwap(1, 3);
+        long position = mJournal.getPosition();
+        mJournal.undo();
+
+        assertNull(mJournal.export(position));
+        assertEquals(0, mJournal.export(mJournal.getPosition()).length);
+    }
+
+    @Test
+    public void exportAfterUndoAndNewRecordReturnsNull() {
+        DragDataModel<String> model = new DragDataModel<>(new ArrayList<>(Arrays.asList("a", "b", "c", "d", "e")));
+        model.setOperationJournal(mJournal);
+        model.move(0, 2);
+        long position = mJournal.getPosition();
+        // 撤销越过了该位置，新记录后位置的数值不变，但数据已不同
+        model.undo();
+        model.move(4, 0);
+
+        assertEquals(Arrays.asList("e", "a", "b", "c", "d"), model.getDataList());
+        assertNull(mJournal.export(position));
+        // 撤销后重做，原来的位置仍有效
+        long current = mJournal.getPosition();
+        model.undo();
+        model.redo();
+        assertEquals(0, mJournal.export(current).length);
+    }
+
+    @Test
+    public void clearStartsNewPositions() {
+        mJournal.recordSwap(0, 2);
+        mJournal.clear();
+
+        assertFalse(mJournal.canUndo());
+        assertNull(mJournal.export(0));
+        assertEquals(0, mJournal.export(1).length);
+    }
+
+    @Test
+    public void randomUndoRedoRestoresLists() {
+        Random random = new Random(9);
+        List<Integer> datas = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            datas.add(i);
+        }
+        DragDataModel<Integer> model = new DragDataModel<>(datas);
+        model.setOperationJournal(new OperationJournal(1000));
+        List<List<Integer>> history = new ArrayList<>();
+        history.add(new ArrayList<>(datas));
+        int next = 50;
+        for (int i = 0; i < 300; i++) {
+            int size = model.size();
+            switch (random.nextInt(5)) {
+                case 0:
+                    model.swap(random.nextInt(size), random.nextInt(size));
+                    break;
+                case 1:
+                    if (size > 10) {
+                        model.delete(random.nextInt(size));
+                    }
+                    break;
+                case 2:
+                    model.add(random.nextInt(size + 1), next++);
+                    break;
+                case 3:
+                    if (size > 10) {
+                        model.markDeleted(random.nextInt(size));
+                    }
+                    break;
+                default:
+                    // 移动后可能与上一条合并，也可能移回原位
+                    model.move(random.nextInt(size), random.nextInt(size));
+                    break;
+            }
+            history.add(new ArrayList<>(model.getDataList()));
+        }
+        List<Integer> last = history.get(history.size() - 1);
+
+        while (model.undo()) {
+            // 每次撤销后的数据都应出现在历史中
+            assertTrue(history.contains(model.getDataList()));
+        }
+        assertEquals(history.get(0), model.getDataList());
+        while (model.redo()) {
+            assertTrue(history.contains(model.getDataList()));
+        }
+        assertEquals(last, model.getDataList());
+    }
+
+    @Test
+    public void exportReplaysToCurrentList() {
+        Random random = new Random(10);
+        List<Integer> datas = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            datas.add(i);
+        }
+        DragDataModel<Integer> model = new DragDataModel<>(datas);
+        OperationJournal journal = new OperationJournal(1000);
+        model.setOperationJournal(journal);
+        List<Integer> synced = new ArrayList<>(datas);
+        long position = journal.getPosition();
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 10; i++) {
+                int size = model.size();
+                switch (random.nextInt(3)) {
+                    case 0:
+                        model.swap(random.nextInt(size), random.nextInt(size));
+                        break;
+                    case 1:
+                        if (size > 10) {
+                            model.delete(random.nextInt(size));
+                        }
+                        break;
+                    default:
+                        model.move(random.nextInt(size), random.nextInt(size));
+                        break;
+                }
+            }
+            // 同步方只重放增量
+            int[] entries = journal.export(position);
+            position = journal.getPosition();
+            for (int i = 0; i < entries.length; i += OperationJournal.EXPORT_STRIDE) {
+                int arg1 = entries[i + 1];
+                int arg2 = entries[i + 2];
+                switch (entries[i]) {
+                    case OperationJournal.TYPE_MOVE:
+                        synced.add(arg2, synced.remove(arg1));
+                        break;
+                    case OperationJournal.TYPE_SWAP:
+                        Collections.swap(synced, arg1, arg2);
+                        break;
+                    case OperationJournal.TYPE_DELETE:
+                        synced.remove(arg1);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            assertEquals(model.getDataList(), synced);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.zjun.view.drag_list_view;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 测试排序键的生成，以及随机移动、插入时键保持有序、过长时重新分配
+ */
+public class OrderKeysTest {
+
+    @Test
+    public void betweenIsStrictlyBetween() {
+        Random random = new Random(11);
+        List<String> keys = new ArrayList<>();
+        keys.add(OrderKeys.between(null, null));
+        for (int i = 0; i < 2000; i++) {
+            // 任意相邻两个键之间插入，包括首尾
+            int location = random.nextInt(keys.size() + 1);
+            String before = location > 0 ? keys.get(location - 1) : null;
+            String after = location < keys.size() ? keys.get(location) : null;
+            String key = OrderKeys.between(before, after);
+            assertTrue(before == null || before.compareTo(key) < 0);
+            assertTrue(after == null || key.compareTo(after) < 0);
+            assertFalse(key.endsWith("0"));
+            keys.add(location, key);
+        }
+    }
+
+    @Test
+    public void repeatedInsertAtSameGapGrowsSlowly() {
+        String before = "1";
+        String after = "2";
+        for (int i = 0; i < 100; i++) {
+            String key = OrderKeys.between(before, after);
+            assertTrue(before.compareTo(key) < 0);
+            assertTrue(key.compareTo(after) < 0);
+            after = key;
+        }
+        // 每位可容纳约log2(62)次二分
+        assertTrue(after.length() <= 100 / 5 + 2);
+    }
+
+    @Test
+    public void invalidBoundsAreRejected() {
+        try {
+            OrderKeys.between("b", "a");
+            fail("between() with before > after should throw");
+        } catch (IllegalArgumentException expected) {
+            // 预期
+        }
+        try {
+            OrderKeys.between("a", "a");
+            fail("between() with equal keys should throw");
+        } catch (IllegalArgumentException expected) {
+            // 预期
+        }
+        try {
+            OrderKeys.between("a0", null);
+            fail("between() with a key ending in '0' should throw");
+        } catch (IllegalArgumentException expected) {
+            // 预期
+        }
+    }
+
+    @Test
+    public void evenlyBetweenIsSortedAndShort() {
+        String[] keys = OrderKeys.evenlyBetween(null, null, 1000);
+        assertEquals(1000, keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            // 62 * 62 > 1000，两位足够
+            assertTrue(keys[i].length() <= 2);
+            if (i > 0) {
+                assertTrue(keys[i - 1].compareTo(keys[i]) < 0);
+            }
+        }
+
+        keys = OrderKeys.evenlyBetween("V", "W", 10);
+        assertTrue("V".compareTo(keys[0]) < 0);
+        assertTrue(keys[9].compareTo("W") < 0);
+        assertEquals(0, OrderKeys.evenlyBetween("V", "W", 0).length);
+    }
+
+    @Test
+    public void randomOperationsKeepKeysSorted() {
+        Random random = new Random(12);
+        List<String> datas = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            datas.add("item" + i);
+        }
+        DragDataModel<String> model = new DragDataModel<>(datas);
+        final Map<String, String> keys = new HashMap<>();
+        final List<String> changed = new ArrayList<>();
+        bindOrderKeys(model, keys, changed);
+        model.assignOrderKeys();
+        assertEquals(100, changed.size());
+        int next = 100;
+        for (int i = 0; i < 3000; i++) {
+            int size = model.size();
+            changed.clear();
+            switch (random.nextInt(4)) {
+                case 0:
+                    model.move(random.nextInt(size), random.nextInt(size));
+                    break;
+                case 1:
+                    model.swap(random.nextInt(size), random.nextInt(size));
+                    break;
+                case 2:
+                    model.add(random.nextInt(size + 1), "item" + next++);
+                    break;
+                default: {
+                    int to = random.nextInt(size - 1);
+                    int first = random.nextInt(size);
+                    int second = random.nextInt(size);
+                    if (first == second) {
+                        break;
+                    }
+                    model.moveItems(new int[]{Math.min(first, second), Math.max(first, second)}, to);
+                    break;
+                }
+            }
+            assertKeysSorted(model, keys);
+        }
+    }
+
+    @Test
+    public void insertingAtSameGapRebalancesNeighbours() {
+        List<String> datas = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            datas.add("item" + i);
+        }
+        DragDataModel<String> model = new DragDataModel<>(datas);
+        final Map<String, String> keys = new HashMap<>();
+        final List<String> changed = new ArrayList<>();
+        bindOrderKeys(model, keys, changed);
+        model.assignOrderKeys();
+
+        int rebalances = 0;
+        for (int i = 0; i < 500; i++) {
+            changed.clear();
+            // 总是插到第10、11条之间，新键越来越长
+            model.add(10, "new" + i);
+            assertTrue(changed.contains("new" + i));
+            if (changed.size() > 1) {
+                rebalances++;
+                // 只重新分配附近的数据
+                assertTrue(changed.size() < model.size());
+            }
+            assertKeysSorted(model, keys);
+        }
+        assertTrue(rebalances > 0);
+    }
+
+    @Test
+    public void missingKeysAreReassigned() {
+        List<String> datas = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            datas.add("item" + i);
+        }
+        DragDataModel<String> model = new DragDataModel<>(datas);
+        final Map<String, String> keys = new HashMap<>();
+        final List<String> changed = new ArrayList<>();
+        bindOrderKeys(model, keys, changed);
+
+        // 未调用assignOrderKeys()，移动时全部分配
+        model.move(2, 7);
+        assertEquals(10, changed.size());
+        assertKeysSorted(model, keys);
+    }
+
+    private static void bindOrderKeys(DragDataModel<String> model, final Map<String, String> keys,
+                                      final List<String> changed) {
+        model.setOrderKeyAccessor(new DragDataModel.OrderKeyAccessor<String>() {
+            @Override
+            public String getOrderKey(String item) {
+                return keys.get(item);
+            }
+
+            @Override
+            public void setOrderKey(String item, String key) {
+                keys.put(item, key);
+            }
+        }, new DragDataModel.OnOrderKeysChangedListener<String>() {
+            @Override
+            public void onOrderKeysChanged(List<String> changedItems) {
+                changed.addAll(changedItems);
+            }
+        });
+    }
+
+    private static void assertKeysSorted(DragDataModel<String> model, Map<String, String> keys) {
+        for (int i = 0; i < model.size(); i++) {
+            String key = keys.get(model.get(i));
+            assertTrue(key.length() <= 16);
+            if (i > 0) {
+                assertTrue(keys.get(model.get(i - 1)).compareTo(key) < 0);
+            }
+        }
+    }
+}
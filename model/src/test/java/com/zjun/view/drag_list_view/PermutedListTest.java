@@ -0,0 +1,125 @@
+package com.zjun.view.drag_list_view;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 与ArrayList对照，随机执行移动、交换、删除和恢复，源数据保持不变
+ */
+public class PermutedListTest {
+
+    @Test
+    public void randomOperationsMatchArrayList() {
+        Random random = new Random(7);
+        List<Integer> source = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            source.add(i);
+        }
+        List<Integer> sourceCopy = new ArrayList<>(source);
+        PermutedList<Integer> list = new PermutedList<>(source);
+        List<Integer> expected = new ArrayList<>(source);
+        // 已删除的源数据位置，按删除的先后
+        List<Integer> deleted = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            int size = expected.size();
+            int op = size == 0 ? 3 : random.nextInt(4);
+            switch (op) {
+                case 0: {
+                    int from = random.nextInt(size);
+                    int to = random.nextInt(size);
+                    list.move(from, to);
+                    expected.add(to, expected.remove(from));
+                    break;
+                }
+                case 1: {
+                    int a = random.nextInt(size);
+                    int b = random.nextInt(size);
+                    list.swap(a, b);
+                    Collections.swap(expected, a, b);
+                    break;
+                }
+                case 2: {
+                    int location = random.nextInt(size);
+                    int sourceIndex = list.getSourceIndex(location);
+                    assertEquals(expected.remove(location), list.remove(location));
+                    deleted.add(sourceIndex);
+                    break;
+                }
+                default: {
+                    if (deleted.isEmpty()) {
+                        break;
+                    }
+                    int sourceIndex = deleted.remove(deleted.size() - 1);
+                    int location = random.nextInt(size + 1);
+                    list.restore(location, sourceIndex);
+                    expected.add(location, source.get(sourceIndex));
+                    break;
+                }
+            }
+            // 逆排列与显示顺序一致
+            int sourceIndex = random.nextInt(source.size());
+            assertEquals(expected.indexOf(sourceIndex), list.getLocation(sourceIndex));
+        }
+        assertEquals(expected, list);
+        // 排列即每个位置上的源数据位置，本测试中与数据相同
+        int[] permutation = list.getPermutation();
+        for (int i = 0; i < permutation.length; i++) {
+            assertEquals((int) expected.get(i), permutation[i]);
+            assertEquals(i, list.getLocation(permutation[i]));
+        }
+        assertEquals(sourceCopy, source);
+    }
+
+    @Test
+    public void reorderRange() {
+        PermutedList<String> list = new PermutedList<>(Arrays.asList("a", "b", "c", "d", "e"));
+        list.reorder(1, new int[]{3, 1, 2});
+
+        assertEquals(Arrays.asList("a", "d", "b", "c", "e"), list);
+        assertArrayEquals(new int[]{0, 3, 1, 2, 4}, list.getPermutation());
+    }
+
+    @Test
+    public void insertAndSetAreRejected() {
+        PermutedList<String> list = new PermutedList<>(Arrays.asList("a", "b", "c"));
+        try {
+            list.add(0, "x");
+            fail("add() should throw");
+        } catch (UnsupportedOperationException expected) {
+            // 预期
+        }
+        try {
+            list.set(0, "x");
+            fail("set() should throw");
+        } catch (UnsupportedOperationException expected) {
+            // 预期
+        }
+        try {
+            list.restore(0, 1);
+            fail("restore() without a deleted element should throw");
+        } catch (IllegalStateException expected) {
+            // 预期
+        }
+        assertEquals(Arrays.asList("a", "b", "c"), list);
+    }
+
+    @Test
+    public void clearKeepsSource() {
+        List<String> source = Arrays.asList("a", "b", "c");
+        PermutedList<String> list = new PermutedList<>(source);
+        list.clear();
+
+        assertEquals(0, list.size());
+        assertEquals(0, list.getPermutation().length);
+        assertEquals(Arrays.asList("a", "b", "c"), list.getSource());
+    }
+}
@@ -0,0 +1,260 @@
+package com.zjun.view.drag_list_view;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 使用内存中的Sink测试操作的合并与批量写入。Sink按顺序执行每批操作，结果需与数据模型一致
+ */
+public class WriteBehindQueueTest {
+
+    private ScheduledExecutorService mExecutor;
+    private MemorySink mSink;
+    private WriteBehindQueue<String> mQueue;
+    private DragDataModel<String> mModel;
+
+    @Before
+    public void setUp() {
+        mExecutor = Executors.newSingleThreadScheduledExecutor();
+        List<String> datas = Arrays.asList("a", "b", "c", "d", "e");
+        mSink = new MemorySink(datas);
+        // 只在flush()时写入，结果可确定
+        mQueue = new WriteBehindQueue<>(mSink, mExecutor, -1);
+        mModel = new DragDataModel<>(new ArrayList<>(datas));
+        mModel.setWriteBehindQueue(mQueue);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void movesOfOneItemCoalesce() throws Exception {
+        mModel.move(0, 1);
+        mModel.move(1, 2);
+        mModel.move(2, 4);
+        assertEquals(1, mQueue.getPendingCount());
+        mQueue.flush().get();
+
+        assertEquals(1, mSink.batches.size());
+        WriteBehindQueue.Operation<String> operation = mSink.batches.get(0).get(0);
+        assertEquals(WriteBehindQueue.TYPE_MOVE, operation.getType());
+        assertEquals("a", operation.getItem());
+        assertEquals(0, operation.getFromIndex());
+        assertEquals(4, operation.getIndex());
+        assertEquals(mModel.getDataList(), mSink.store);
+    }
+
+    @Test
+    public void moveBackToOriginIsDropped() throws Exception {
+        mModel.move(1, 3);
+        mModel.move(3, 1);
+        assertEquals(0, mQueue.getPendingCount());
+        mQueue.flush().get();
+        assertTrue(mSink.batches.isEmpty());
+    }
+
+    @Test
+    public void deleteCancelsPendingMoves() throws Exception {
+        mModel.move(0, 3);
+        mModel.move(3, 2);
+        mModel.delete(2);
+        mQueue.flush().get();
+
+        List<WriteBehindQueue.Operation<String>> batch = mSink.batches.get(0);
+        assertEquals(1, batch.size());
+        assertEquals(WriteBehindQueue.TYPE_DELETE, batch.get(0).getType());
+        assertEquals("a", batch.get(0).getItem());
+        // 相当于在移动前的位置删除
+        assertEquals(0, batch.get(0).getIndex());
+        assertEquals(mModel.getDataList(), mSink.store);
+    }
+
+    @Test
+    public void insertThenDeleteWritesNothing() throws Exception {
+        mModel.add(2, "x");
+        mModel.move(2, 0);
+        mModel.delete(0);
+        mQueue.flush().get();
+        assertTrue(mSink.batches.isEmpty());
+    }
+
+    @Test
+    public void undoneDeleteBecomesMove() throws Exception {
+        mModel.setOperationJournal(new OperationJournal(16));
+        mModel.delete(1);
+        mModel.undo();
+        // 撤销后回到原位，不需要写入
+        assertEquals(0, mQueue.getPendingCount());
+        mModel.markDeleted(1);
+        mModel.add(3, "b");
+        mQueue.flush().get();
+
+        WriteBehindQueue.Operation<String> operation = mSink.batches.get(0).get(0);
+        assertEquals(WriteBehindQueue.TYPE_MOVE, operation.getType());
+        assertEquals(1, operation.getFromIndex());
+        assertEquals(3, operation.getIndex());
+        assertEquals(mModel.getDataList(), mSink.store);
+    }
+
+    @Test
+    public void operationsOfDifferentItemsShareOneBatch() throws Exception {
+        mModel.swap(0, 1);
+        mModel.delete(4);
+        mModel.add(0, "x");
+        mQueue.flush().get();
+
+        assertEquals(1, mSink.batches.size());
+        List<WriteBehindQueue.Operation<String>> batch = mSink.batches.get(0);
+        // 相邻两条的交换只需移动一次
+        assertEquals(3, batch.size());
+        assertEquals("a", batch.get(0).getItem());
+        assertEquals(WriteBehindQueue.TYPE_DELETE, batch.get(1).getType());
+        assertEquals(WriteBehindQueue.TYPE_INSERT, batch.get(2).getType());
+        assertEquals(0, mQueue.getPendingCount());
+        assertEquals(mModel.getDataList(), mSink.store);
+    }
+
+    @Test
+    public void interleavedMovesKeepTheirOrder() throws Exception {
+        mModel.setDataList(new ArrayList<>(Arrays.asList("a", "b", "c")));
+        mSink.store = new ArrayList<>(mModel.getDataList());
+        mModel.move(0, 1);
+        mModel.move(2, 0);
+        mModel.move(2, 1);
+        mQueue.flush().get();
+
+        assertEquals(Arrays.asList("c", "a", "b"), mModel.getDataList());
+        assertEquals(mModel.getDataList(), mSink.store);
+    }
+
+    @Test
+    public void randomOperationsReplayToTheSameList() throws Exception {
+        Random random = new Random(615);
+        List<String> datas = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            datas.add("item" + i);
+        }
+        mModel.setDataList(new ArrayList<>(datas));
+        mModel.setOperationJournal(new OperationJournal(64));
+        mSink.store = new ArrayList<>(datas);
+        int next = datas.size();
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 15; i++) {
+                int size = mModel.size();
+                switch (random.nextInt(6)) {
+                    case 0:
+                        mModel.move(random.nextInt(size), random.nextInt(size));
+                        break;
+                    case 1:
+                        mModel.swap(random.nextInt(size), random.nextInt(size));
+                        break;
+                    case 2:
+                        if (size > 10) {
+                            mModel.markDeleted(random.nextInt(size));
+                        }
+                        break;
+                    case 3:
+                        mModel.add(random.nextInt(size + 1), "item" + next++);
+                        break;
+                    case 4:
+                        mModel.moveItems(new int[]{1, 4, 5}, random.nextInt(size - 2));
+                        break;
+                    default:
+                        mModel.undo();
+                        break;
+                }
+            }
+            mQueue.flush().get();
+            assertEquals(mModel.getDataList(), mSink.store);
+        }
+    }
+
+    @Test
+    public void failedBatchIsRetriedWithLaterOperations() throws Exception {
+        mModel.move(0, 2);
+        mSink.fail = true;
+        try {
+            mQueue.flush().get();
+            fail("flush should report the sink failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        mModel.move(2, 4);
+        mModel.delete(0);
+        mSink.fail = false;
+        mQueue.flush().get();
+
+        List<WriteBehindQueue.Operation<String>> batch = mSink.batches.get(0);
+        assertEquals(2, batch.size());
+        assertEquals("a", batch.get(0).getItem());
+        assertEquals(0, batch.get(0).getFromIndex());
+        assertEquals(4, batch.get(0).getIndex());
+        assertEquals(WriteBehindQueue.TYPE_DELETE, batch.get(1).getType());
+        assertEquals(mModel.getDataList(), mSink.store);
+    }
+
+    @Test
+    public void idleDelayFlushesAutomatically() throws Exception {
+        WriteBehindQueue<String> queue = new WriteBehindQueue<>(mSink, mExecutor, 10);
+        mModel.setWriteBehindQueue(queue);
+        mModel.move(0, 1);
+        Thread.sleep(200);
+        assertEquals(1, mSink.batches.size());
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    /**
+     * 内存中的Sink，每批操作视为一个事务：按顺序执行到store上
+     */
+    private static class MemorySink implements WriteBehindQueue.Sink<String> {
+        final List<List<WriteBehindQueue.Operation<String>>> batches = new ArrayList<>();
+        volatile List<String> store;
+        volatile boolean fail;
+
+        MemorySink(List<String> datas) {
+            store = new ArrayList<>(datas);
+        }
+
+        @Override
+        public void write(List<WriteBehindQueue.Operation<String>> operations) {
+            if (fail) {
+                throw new IllegalStateException("sink unavailable");
+            }
+            List<String> result = new ArrayList<>(store);
+            for (WriteBehindQueue.Operation<String> operation : operations) {
+                switch (operation.getType()) {
+                    case WriteBehindQueue.TYPE_MOVE:
+                        assertEquals(operation.getItem(), result.remove(operation.getFromIndex()));
+                        result.add(operation.getIndex(), operation.getItem());
+                        break;
+                    case WriteBehindQueue.TYPE_DELETE:
+                        assertEquals(operation.getItem(), result.remove(operation.getIndex()));
+                        break;
+                    case WriteBehindQueue.TYPE_INSERT:
+                        result.add(operation.getIndex(), operation.getItem());
+                        break;
+                    default:
+                        fail("unknown type " + operation.getType());
+                        break;
+                }
+            }
+            store = result;
+            batches.add(new ArrayList<>(operations));
+        }
+    }
+}